@@ -0,0 +1,40 @@
+package com.kas.promobenchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks with a JSON result file and the GC profiler by default, so every run leaves an artifact
+ * that can be compared against a baseline. Any JMH command line option overrides the defaults.
+ */
+public class BenchmarkRunner {
+
+  private static final Path RESULT = Path.of("target", "jmh-result.json");
+
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions cli = new CommandLineOptions(args);
+    if (cli.shouldHelp() || cli.shouldList() || cli.shouldListWithParams() || cli.shouldListProfilers()
+        || cli.shouldListResultFormats()) {
+      Main.main(args);
+      return;
+    }
+    ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+
+    if (!cli.getResultFormat().hasValue() && !cli.getResult().hasValue()) {
+      Files.createDirectories(RESULT.getParent());
+      options.resultFormat(ResultFormatType.JSON).result(RESULT.toString());
+    }
+    if (cli.getProfilers().isEmpty()) {
+      options.addProfiler(GCProfiler.class);
+    }
+    new Runner(options.build()).run();
+  }
+}
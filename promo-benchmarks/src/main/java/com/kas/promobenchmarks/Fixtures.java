@@ -0,0 +1,44 @@
+package com.kas.promobenchmarks;
+
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+final class Fixtures {
+
+  private Fixtures() {
+  }
+
+  static List<String> bookIds(int count) {
+    List<String> bookIds = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      bookIds.add(new UUID(i, i * 31L).toString());
+    }
+    return bookIds;
+  }
+
+  static Promo promo(int bookCount) {
+    LocalDateTime now = LocalDateTime.now();
+    return new Promo("bench-promo", "Benchmark promo", "Promo used by the benchmarks", 25,
+        bookIds(bookCount), Status.ENABLED, now, now.plusDays(7), now.minusDays(1), now, 3L);
+  }
+
+  /**
+   * The event builders stay private to the services, the benchmarks reach them through a private lookup.
+   */
+  static MethodHandle staticMethod(Class<?> owner, String name, Class<?> returnType, Class<?>... parameterTypes) {
+    try {
+      return MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+          .findStatic(owner, name, MethodType.methodType(returnType, parameterTypes));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("No " + name + " in " + owner.getName(), e);
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.kas.promobenchmarks;
+
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.util.codec.PromoCodec;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.bson.io.BasicOutputBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+/**
+ * BSON encoding and decoding of a promo document, the hand-written codecs against the automatic POJO codec they
+ * replaced. The document is the one the POJO codec writes, so both codecs read the shape stored in Mongo.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromoCodecBenchmark {
+
+  @Param({"1", "100", "10000"})
+  private int bookCount;
+
+  private final PromoCodec promoCodec = new PromoCodec();
+  private final com.kas.promoschedulerservice.util.codec.PromoCodec schedulerCodec =
+      new com.kas.promoschedulerservice.util.codec.PromoCodec();
+  private Codec<Promo> pojoCodec;
+  private Codec<com.kas.promoschedulerservice.model.Promo> schedulerPojoCodec;
+
+  private Promo promo;
+  private byte[] document;
+
+  @Setup
+  public void setUp() {
+    CodecRegistry pojoRegistry = fromRegistries(
+        MongoClientSettings.getDefaultCodecRegistry(),
+        fromProviders(PojoCodecProvider.builder().automatic(true).build())
+    );
+    pojoCodec = pojoRegistry.get(Promo.class);
+    schedulerPojoCodec = pojoRegistry.get(com.kas.promoschedulerservice.model.Promo.class);
+    promo = Fixtures.promo(bookCount);
+    document = encode(pojoCodec);
+  }
+
+  @Benchmark
+  public Promo decodePojo() {
+    return pojoCodec.decode(reader(), DecoderContext.builder().build());
+  }
+
+  @Benchmark
+  public Promo decodeCodec() {
+    return promoCodec.decode(reader(), DecoderContext.builder().build());
+  }
+
+  @Benchmark
+  public com.kas.promoschedulerservice.model.Promo decodeSchedulerPojo() {
+    return schedulerPojoCodec.decode(reader(), DecoderContext.builder().build());
+  }
+
+  @Benchmark
+  public com.kas.promoschedulerservice.model.Promo decodeSchedulerCodec() {
+    return schedulerCodec.decode(reader(), DecoderContext.builder().build());
+  }
+
+  @Benchmark
+  public byte[] encodePojo() {
+    return encode(pojoCodec);
+  }
+
+  @Benchmark
+  public byte[] encodeCodec() {
+    return encode(promoCodec);
+  }
+
+  private BsonBinaryReader reader() {
+    return new BsonBinaryReader(ByteBuffer.wrap(document));
+  }
+
+  private byte[] encode(Codec<Promo> codec) {
+    BasicOutputBuffer buffer = new BasicOutputBuffer(128 + bookCount * 48);
+    try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+      codec.encode(writer, promo, EncoderContext.builder().build());
+    }
+    return buffer.toByteArray();
+  }
+}
@@ -0,0 +1,96 @@
+package com.kas.promobenchmarks;
+
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+import com.kas.promoservice.service.PromoService;
+import com.kas.promoservice.util.serializer.PromoEventBinarySerializer;
+import com.kas.promoservice.util.serializer.PromoEventDeserializer;
+import com.kas.promoservice.util.serializer.PromoEventSerializer;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kafka value (de)serialization of promo events, JSON against the binary format, and of the status-only
+ * PROMO_DELTA that replaces a full PROMO_UPDATED.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromoEventSerializationBenchmark {
+
+  private static final String TOPIC = "promo-topic";
+  private static final MethodHandle BUILD_PROMO_EVENT = Fixtures.staticMethod(PromoService.class,
+      "buildPromoEvent", PromoEvent.class, Promo.class, PromoEvent.EventType.class);
+  private static final MethodHandle BUILD_DELTA_EVENT = Fixtures.staticMethod(PromoService.class,
+      "buildDeltaEvent", PromoEvent.class, Promo.class, Promo.class);
+
+  @Param({"1", "100", "10000"})
+  private int bookCount;
+
+  private final PromoEventSerializer jsonSerializer = new PromoEventSerializer();
+  private final PromoEventBinarySerializer binarySerializer = new PromoEventBinarySerializer();
+  private final PromoEventDeserializer deserializer = new PromoEventDeserializer();
+
+  private PromoEvent event;
+  private PromoEvent delta;
+  private RecordHeaders jsonHeaders;
+  private RecordHeaders binaryHeaders;
+  private byte[] json;
+  private byte[] binary;
+
+  @Setup
+  public void setUp() throws Throwable {
+    Promo promo = Fixtures.promo(bookCount);
+    event = (PromoEvent) BUILD_PROMO_EVENT.invokeExact(promo, PromoEvent.EventType.PROMO_UPDATED);
+    Promo paused = Fixtures.promo(bookCount);
+    paused.setStatus(Status.PAUSED);
+    paused.setVersion(promo.getVersion() + 1);
+    delta = (PromoEvent) BUILD_DELTA_EVENT.invokeExact(promo, paused);
+    jsonHeaders = new RecordHeaders();
+    json = jsonSerializer.serialize(TOPIC, jsonHeaders, event);
+    binaryHeaders = new RecordHeaders();
+    binary = binarySerializer.serialize(TOPIC, binaryHeaders, event);
+  }
+
+  @Benchmark
+  public byte[] serializeJson() {
+    return jsonSerializer.serialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public byte[] serializeBinary() {
+    return binarySerializer.serialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public byte[] serializeBinaryDelta() {
+    return binarySerializer.serialize(TOPIC, delta);
+  }
+
+  @Benchmark
+  public PromoEvent deserializeJson() {
+    return deserializer.deserialize(TOPIC, jsonHeaders, json);
+  }
+
+  @Benchmark
+  public PromoEvent deserializeBinary() {
+    return deserializer.deserialize(TOPIC, binaryHeaders, binary);
+  }
+}
@@ -0,0 +1,96 @@
+package com.kas.promobenchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+import com.kas.promoservice.service.PromoService;
+import com.kas.promoservice.util.mapper.PromoMapper;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request-path work in promo-service: entity/DTO mapping, event construction and the Jackson round trip
+ * of the REST payload.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromoMappingBenchmark {
+
+  private static final MethodHandle BUILD_PROMO_EVENT = Fixtures.staticMethod(PromoService.class,
+      "buildPromoEvent", PromoEvent.class, Promo.class, PromoEvent.EventType.class);
+
+  @Param({"1", "100", "10000"})
+  private int bookCount;
+
+  private final PromoMapper promoMapper = Mappers.getMapper(PromoMapper.class);
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private Promo promo;
+  private PromoDto promoDto;
+  private byte[] promoJson;
+
+  @Setup
+  public void setUp() throws Exception {
+    promo = Fixtures.promo(bookCount);
+    promoDto = promoMapper.toDto(promo);
+    promoJson = objectMapper.writeValueAsBytes(promoDto);
+  }
+
+  @Benchmark
+  public PromoDto toDto() {
+    return promoMapper.toDto(promo);
+  }
+
+  @Benchmark
+  public Promo toEntity() {
+    return promoMapper.toEntity(promoDto);
+  }
+
+  @Benchmark
+  public PromoEvent buildPromoEvent() throws Throwable {
+    return (PromoEvent) BUILD_PROMO_EVENT.invokeExact(promo, PromoEvent.EventType.PROMO_UPDATED);
+  }
+
+  @Benchmark
+  public byte[] writeDtoJson() throws Exception {
+    return objectMapper.writeValueAsBytes(promoDto);
+  }
+
+  @Benchmark
+  public PromoDto readDtoJson() throws Exception {
+    return objectMapper.readValue(promoJson, PromoDto.class);
+  }
+
+  @Benchmark
+  public Status statusFromString() {
+    return Status.fromString("enabled");
+  }
+
+  @Benchmark
+  public String statusToJson() {
+    return Status.ENABLED.toJson();
+  }
+}
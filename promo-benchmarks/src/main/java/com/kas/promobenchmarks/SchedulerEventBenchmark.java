@@ -0,0 +1,80 @@
+package com.kas.promobenchmarks;
+
+import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import com.kas.promoschedulerservice.model.Promo;
+import com.kas.promoschedulerservice.model.Status;
+import com.kas.promoschedulerservice.service.PromoSchedulerService;
+import com.kas.promoschedulerservice.util.serializer.PromoEventBinarySerializer;
+import com.kas.promoschedulerservice.util.serializer.PromoEventSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-transition work in promo-scheduler-service: building the status change event and serializing it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerEventBenchmark {
+
+  private static final String TOPIC = "promo-topic";
+  private static final MethodHandle BUILD_PROMO_EVENT = Fixtures.staticMethod(PromoSchedulerService.class,
+      "buildPromoEvent", PromoEvent.class, Promo.class, PromoEvent.EventType.class);
+
+  @Param({"1", "100", "10000"})
+  private int bookCount;
+
+  private final PromoEventSerializer jsonSerializer = new PromoEventSerializer();
+  private final PromoEventBinarySerializer binarySerializer = new PromoEventBinarySerializer();
+
+  private Promo promo;
+  private PromoEvent event;
+
+  @Setup
+  public void setUp() throws Throwable {
+    LocalDateTime now = LocalDateTime.now();
+    promo = new Promo();
+    promo.setId("bench-promo");
+    promo.setName("Benchmark promo");
+    promo.setDescription("Promo used by the scheduler benchmarks");
+    promo.setDiscountPercent(25);
+    promo.setBookIds(Fixtures.bookIds(bookCount));
+    promo.setStatus(Status.ENABLED);
+    promo.setStartsAt(now);
+    promo.setEndsAt(now.plusDays(7));
+    promo.setCreatedAt(now.minusDays(1));
+    promo.setUpdatedAt(now);
+    event = buildPromoEvent();
+  }
+
+  @Benchmark
+  public PromoEvent buildPromoEvent() throws Throwable {
+    return (PromoEvent) BUILD_PROMO_EVENT.invokeExact(promo, PromoEvent.EventType.PROMO_UPDATED);
+  }
+
+  @Benchmark
+  public byte[] serializeJson() {
+    return jsonSerializer.serialize(TOPIC, event);
+  }
+
+  @Benchmark
+  public byte[] serializeBinary() {
+    return binarySerializer.serialize(TOPIC, event);
+  }
+}
@@ -0,0 +1,233 @@
+package com.kas.promoeventschema;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.kas.promoeventschema.PromoEventSchema.ADDED_BOOK_IDS;
+import static com.kas.promoeventschema.PromoEventSchema.BASE_VERSION;
+import static com.kas.promoeventschema.PromoEventSchema.BOOK_IDS;
+import static com.kas.promoeventschema.PromoEventSchema.CREATED_AT;
+import static com.kas.promoeventschema.PromoEventSchema.DESCRIPTION;
+import static com.kas.promoeventschema.PromoEventSchema.DISCOUNT_PERCENT;
+import static com.kas.promoeventschema.PromoEventSchema.ENDS_AT;
+import static com.kas.promoeventschema.PromoEventSchema.EVENT_TYPES;
+import static com.kas.promoeventschema.PromoEventSchema.NAME;
+import static com.kas.promoeventschema.PromoEventSchema.PROMO_ID;
+import static com.kas.promoeventschema.PromoEventSchema.REMOVED_BOOK_IDS;
+import static com.kas.promoeventschema.PromoEventSchema.STARTS_AT;
+import static com.kas.promoeventschema.PromoEventSchema.STATUS;
+import static com.kas.promoeventschema.PromoEventSchema.STATUSES;
+import static com.kas.promoeventschema.PromoEventSchema.TIMESTAMP;
+import static com.kas.promoeventschema.PromoEventSchema.UPDATED_AT;
+import static com.kas.promoeventschema.PromoEventSchema.VERSION;
+
+/**
+ * Binary wire format of {@link PromoEventData}.
+ * <pre>
+ * version:byte
+ * envelopeMask:varint  eventId:string? eventType:byte? occurredAt:instant? payload?
+ * payloadMask:varint   fields in PromoEventSchema bit order, only those present
+ * </pre>
+ * Strings are varint length + UTF-8, string lists are varint count + strings, integers are varints, timestamps are zigzag epoch seconds + varint nanos
+ * (LocalDateTime is read as UTC, the same convention the BSON codecs use).
+ */
+public final class PromoEventBinaryCodec {
+
+    private static final int EVENT_ID = 1;
+    private static final int EVENT_TYPE = 1 << 1;
+    private static final int OCCURRED_AT = 1 << 2;
+    private static final int PAYLOAD = 1 << 3;
+
+    private PromoEventBinaryCodec() {
+    }
+
+    public static byte[] encode(PromoEventData event) {
+        PromoEventData.Payload payload = event.getPayload();
+        int bookCount = payload == null ? 0
+                : size(payload.getBookIds()) + size(payload.getAddedBookIds()) + size(payload.getRemovedBookIds());
+        BinaryWriter writer = new BinaryWriter(128 + bookCount * 40);
+
+        writer.writeByte(PromoEventSchema.BINARY_VERSION);
+        int envelopeMask = (event.getEventId() != null ? EVENT_ID : 0)
+                | (event.getEventType() != null ? EVENT_TYPE : 0)
+                | (event.getOccurredAt() != null ? OCCURRED_AT : 0)
+                | (payload != null ? PAYLOAD : 0);
+        writer.writeVarLong(envelopeMask);
+        if (event.getEventId() != null) {
+            writer.writeString(event.getEventId());
+        }
+        if (event.getEventType() != null) {
+            writer.writeByte(PromoEventSchema.code(EVENT_TYPES, event.getEventType()));
+        }
+        if (event.getOccurredAt() != null) {
+            writer.writeInstant(event.getOccurredAt());
+        }
+        if (payload != null) {
+            writePayload(writer, payload);
+        }
+        return writer.toByteArray();
+    }
+
+    public static PromoEventData decode(byte[] data) {
+        BinaryReader reader = new BinaryReader(data);
+        int version = reader.readByte();
+        if (version < PromoEventSchema.MIN_BINARY_VERSION || version > PromoEventSchema.BINARY_VERSION) {
+            throw new IllegalArgumentException("Unsupported promo event binary version " + version);
+        }
+        PromoEventData event = new PromoEventData();
+        int envelopeMask = reader.readVarInt();
+        if ((envelopeMask & EVENT_ID) != 0) {
+            event.setEventId(reader.readString());
+        }
+        if ((envelopeMask & EVENT_TYPE) != 0) {
+            event.setEventType(PromoEventSchema.value(EVENT_TYPES, reader.readByte()));
+        }
+        if ((envelopeMask & OCCURRED_AT) != 0) {
+            event.setOccurredAt(reader.readInstant());
+        }
+        if ((envelopeMask & PAYLOAD) != 0) {
+            event.setPayload(readPayload(reader));
+        }
+        return event;
+    }
+
+    private static void writePayload(BinaryWriter writer, PromoEventData.Payload payload) {
+        int mask = (payload.getPromoId() != null ? PROMO_ID : 0)
+                | (payload.getName() != null ? NAME : 0)
+                | (payload.getDescription() != null ? DESCRIPTION : 0)
+                | (payload.getDiscountPercent() != null ? DISCOUNT_PERCENT : 0)
+                | (payload.getBookIds() != null ? BOOK_IDS : 0)
+                | (payload.getStatus() != null ? STATUS : 0)
+                | (payload.getStartsAt() != null ? STARTS_AT : 0)
+                | (payload.getEndsAt() != null ? ENDS_AT : 0)
+                | (payload.getCreatedAt() != null ? CREATED_AT : 0)
+                | (payload.getUpdatedAt() != null ? UPDATED_AT : 0)
+                | (payload.getTimestamp() != null ? TIMESTAMP : 0)
+                | (payload.getVersion() != null ? VERSION : 0)
+                | (payload.getBaseVersion() != null ? BASE_VERSION : 0)
+                | (payload.getAddedBookIds() != null ? ADDED_BOOK_IDS : 0)
+                | (payload.getRemovedBookIds() != null ? REMOVED_BOOK_IDS : 0);
+        writer.writeVarLong(mask);
+
+        if (payload.getPromoId() != null) {
+            writer.writeString(payload.getPromoId());
+        }
+        if (payload.getName() != null) {
+            writer.writeString(payload.getName());
+        }
+        if (payload.getDescription() != null) {
+            writer.writeString(payload.getDescription());
+        }
+        if (payload.getDiscountPercent() != null) {
+            writer.writeZigZag(payload.getDiscountPercent());
+        }
+        if (payload.getBookIds() != null) {
+            writeStrings(writer, payload.getBookIds());
+        }
+        if (payload.getStatus() != null) {
+            writer.writeByte(PromoEventSchema.code(STATUSES, payload.getStatus()));
+        }
+        if (payload.getStartsAt() != null) {
+            writer.writeDateTime(payload.getStartsAt());
+        }
+        if (payload.getEndsAt() != null) {
+            writer.writeDateTime(payload.getEndsAt());
+        }
+        if (payload.getCreatedAt() != null) {
+            writer.writeDateTime(payload.getCreatedAt());
+        }
+        if (payload.getUpdatedAt() != null) {
+            writer.writeDateTime(payload.getUpdatedAt());
+        }
+        if (payload.getTimestamp() != null) {
+            writer.writeInstant(payload.getTimestamp());
+        }
+        if (payload.getVersion() != null) {
+            writer.writeVarLong(payload.getVersion());
+        }
+        if (payload.getBaseVersion() != null) {
+            writer.writeVarLong(payload.getBaseVersion());
+        }
+        if (payload.getAddedBookIds() != null) {
+            writeStrings(writer, payload.getAddedBookIds());
+        }
+        if (payload.getRemovedBookIds() != null) {
+            writeStrings(writer, payload.getRemovedBookIds());
+        }
+    }
+
+    private static void writeStrings(BinaryWriter writer, List<String> values) {
+        writer.writeVarLong(values.size());
+        for (String value : values) {
+            if (value == null) {
+                throw new IllegalArgumentException("Promo event book id lists cannot contain null");
+            }
+            writer.writeString(value);
+        }
+    }
+
+    private static PromoEventData.Payload readPayload(BinaryReader reader) {
+        PromoEventData.Payload payload = new PromoEventData.Payload();
+        int mask = reader.readVarInt();
+
+        if ((mask & PROMO_ID) != 0) {
+            payload.setPromoId(reader.readString());
+        }
+        if ((mask & NAME) != 0) {
+            payload.setName(reader.readString());
+        }
+        if ((mask & DESCRIPTION) != 0) {
+            payload.setDescription(reader.readString());
+        }
+        if ((mask & DISCOUNT_PERCENT) != 0) {
+            payload.setDiscountPercent((int) reader.readZigZag());
+        }
+        if ((mask & BOOK_IDS) != 0) {
+            payload.setBookIds(readStrings(reader));
+        }
+        if ((mask & STATUS) != 0) {
+            payload.setStatus(PromoEventSchema.value(STATUSES, reader.readByte()));
+        }
+        if ((mask & STARTS_AT) != 0) {
+            payload.setStartsAt(reader.readDateTime());
+        }
+        if ((mask & ENDS_AT) != 0) {
+            payload.setEndsAt(reader.readDateTime());
+        }
+        if ((mask & CREATED_AT) != 0) {
+            payload.setCreatedAt(reader.readDateTime());
+        }
+        if ((mask & UPDATED_AT) != 0) {
+            payload.setUpdatedAt(reader.readDateTime());
+        }
+        if ((mask & TIMESTAMP) != 0) {
+            payload.setTimestamp(reader.readInstant());
+        }
+        if ((mask & VERSION) != 0) {
+            payload.setVersion(reader.readVarLong());
+        }
+        if ((mask & BASE_VERSION) != 0) {
+            payload.setBaseVersion(reader.readVarLong());
+        }
+        if ((mask & ADDED_BOOK_IDS) != 0) {
+            payload.setAddedBookIds(readStrings(reader));
+        }
+        if ((mask & REMOVED_BOOK_IDS) != 0) {
+            payload.setRemovedBookIds(readStrings(reader));
+        }
+        return payload;
+    }
+
+    private static List<String> readStrings(BinaryReader reader) {
+        int count = reader.readVarInt();
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(reader.readString());
+        }
+        return values;
+    }
+
+    private static int size(List<String> values) {
+        return values == null ? 0 : values.size();
+    }
+}
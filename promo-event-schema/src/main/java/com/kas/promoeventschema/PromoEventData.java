@@ -0,0 +1,50 @@
+package com.kas.promoeventschema;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service independent shape of a promo event. Enum values travel by name, each service maps its own
+ * PromoEvent to and from this class. A PROMO_DELTA payload only carries the promo id, the fields that changed
+ * and the version pair, a consumer whose copy is not at baseVersion has to resync from a full snapshot.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromoEventData {
+
+    private String eventId;
+    private String eventType;
+    private Instant occurredAt;
+    private Payload payload;
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Payload {
+        private String promoId;
+        private String name;
+        private String description;
+        private Integer discountPercent;
+        private List<String> bookIds;
+        private String status;
+        private LocalDateTime startsAt;
+        private LocalDateTime endsAt;
+        private LocalDateTime createdAt;
+        private LocalDateTime updatedAt;
+        private Instant timestamp;
+        private Long version;
+        // set on PROMO_DELTA events only: the version the delta applies to and the bookIds changes
+        private Long baseVersion;
+        private List<String> addedBookIds;
+        private List<String> removedBookIds;
+    }
+}
@@ -0,0 +1,83 @@
+package com.kas.promoeventschema;
+
+import java.util.List;
+
+public final class PromoEventSchema {
+
+    /**
+     * Kafka record header naming the wire format of the value.
+     */
+    public static final String FORMAT_HEADER = "promo-event-format";
+    public static final String FORMAT_JSON = "json-v1";
+
+    // version 2 added the version, delta and bookIds change fields, it still reads version 1 records
+    public static final byte BINARY_VERSION = 2;
+    static final byte MIN_BINARY_VERSION = 1;
+
+    private static final String BINARY_PREFIX = "binary-v";
+    /**
+     * Format header of the records this schema writes, it names the same version as the leading payload byte.
+     */
+    public static final String FORMAT_BINARY = BINARY_PREFIX + BINARY_VERSION;
+
+    // codes are positions in these lists plus one, zero is reserved for null; only append new values
+    static final List<String> EVENT_TYPES = List.of("PROMO_CREATED", "PROMO_UPDATED", "PROMO_DELETED",
+            "PROMO_DELTA");
+    static final List<String> STATUSES = List.of("ENABLED", "PAUSED", "PENDING", "ENDED", "DELETED");
+
+    // payload presence mask bits, in wire order
+    static final int PROMO_ID = 1;
+    static final int NAME = 1 << 1;
+    static final int DESCRIPTION = 1 << 2;
+    static final int DISCOUNT_PERCENT = 1 << 3;
+    static final int BOOK_IDS = 1 << 4;
+    static final int STATUS = 1 << 5;
+    static final int STARTS_AT = 1 << 6;
+    static final int ENDS_AT = 1 << 7;
+    static final int CREATED_AT = 1 << 8;
+    static final int UPDATED_AT = 1 << 9;
+    static final int TIMESTAMP = 1 << 10;
+    static final int VERSION = 1 << 11;
+    static final int BASE_VERSION = 1 << 12;
+    static final int ADDED_BOOK_IDS = 1 << 13;
+    static final int REMOVED_BOOK_IDS = 1 << 14;
+
+    private PromoEventSchema() {
+    }
+
+    /**
+     * Whether a format header names a binary version this schema can read.
+     */
+    public static boolean isBinaryFormat(String format) {
+        if (format == null || !format.startsWith(BINARY_PREFIX)) {
+            return false;
+        }
+        try {
+            int version = Integer.parseInt(format.substring(BINARY_PREFIX.length()));
+            return version >= MIN_BINARY_VERSION && version <= BINARY_VERSION;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    static int code(List<String> values, String value) {
+        if (value == null) {
+            return 0;
+        }
+        int index = values.indexOf(value);
+        if (index < 0) {
+            throw new IllegalArgumentException("Value " + value + " is not part of the promo event schema");
+        }
+        return index + 1;
+    }
+
+    static String value(List<String> values, int code) {
+        if (code == 0) {
+            return null;
+        }
+        if (code > values.size()) {
+            throw new IllegalArgumentException("Unknown promo event schema code " + code);
+        }
+        return values.get(code - 1);
+    }
+}
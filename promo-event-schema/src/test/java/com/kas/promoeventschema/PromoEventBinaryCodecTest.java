@@ -0,0 +1,139 @@
+package com.kas.promoeventschema;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromoEventBinaryCodecTest {
+
+    @Test
+    void roundTripsEveryField() {
+        PromoEventData event = fullEvent();
+
+        PromoEventData decoded = PromoEventBinaryCodec.decode(PromoEventBinaryCodec.encode(event));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    void roundTripsVarintAndZigZagBoundaries() {
+        PromoEventData event = new PromoEventData("e", "PROMO_DELTA", Instant.ofEpochSecond(-1, 999_999_999), null);
+        PromoEventData.Payload payload = new PromoEventData.Payload();
+        payload.setPromoId("p");
+        payload.setDiscountPercent(Integer.MIN_VALUE);
+        payload.setVersion(Long.MAX_VALUE);
+        payload.setBaseVersion(127L);
+        payload.setStartsAt(LocalDateTime.of(1900, 1, 1, 0, 0, 0, 1));
+        payload.setAddedBookIds(List.of());
+        event.setPayload(payload);
+
+        PromoEventData decoded = PromoEventBinaryCodec.decode(PromoEventBinaryCodec.encode(event));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(event);
+    }
+
+    @Test
+    void leavesAbsentFieldsNull() {
+        PromoEventData event = new PromoEventData(null, "PROMO_DELETED", null, null);
+
+        PromoEventData decoded = PromoEventBinaryCodec.decode(PromoEventBinaryCodec.encode(event));
+
+        assertThat(decoded.getEventType()).isEqualTo("PROMO_DELETED");
+        assertThat(decoded.getEventId()).isNull();
+        assertThat(decoded.getOccurredAt()).isNull();
+        assertThat(decoded.getPayload()).isNull();
+    }
+
+    @Test
+    void writesTheVersionItsFormatHeaderNames() {
+        byte[] data = PromoEventBinaryCodec.encode(fullEvent());
+
+        assertThat(data[0]).isEqualTo(PromoEventSchema.BINARY_VERSION);
+        assertThat(PromoEventSchema.FORMAT_BINARY).isEqualTo("binary-v" + data[0]);
+    }
+
+    @Test
+    void readsVersionOneRecords() {
+        byte[] id = "promo-1".getBytes(StandardCharsets.UTF_8);
+        byte[] data = new byte[5 + id.length];
+        data[0] = 1;
+        // envelope: payload only
+        data[1] = 1 << 3;
+        // payload: promoId and discountPercent, both present in version 1
+        data[2] = 1 | 1 << 3;
+        data[3] = (byte) id.length;
+        System.arraycopy(id, 0, data, 4, id.length);
+        // zigzag 20
+        data[4 + id.length] = 40;
+
+        PromoEventData decoded = PromoEventBinaryCodec.decode(data);
+
+        assertThat(decoded.getPayload().getPromoId()).isEqualTo("promo-1");
+        assertThat(decoded.getPayload().getDiscountPercent()).isEqualTo(20);
+        assertThat(decoded.getPayload().getVersion()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownVersions() {
+        byte[] data = PromoEventBinaryCodec.encode(fullEvent());
+        data[0] = (byte) (PromoEventSchema.BINARY_VERSION + 1);
+
+        assertThatThrownBy(() -> PromoEventBinaryCodec.decode(data))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsValuesOutsideTheSchema() {
+        PromoEventData event = new PromoEventData("e", "PROMO_ARCHIVED", null, null);
+
+        assertThatThrownBy(() -> PromoEventBinaryCodec.encode(event))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsNullBookIds() {
+        PromoEventData event = fullEvent();
+        event.getPayload().setBookIds(Arrays.asList("book-1", null));
+
+        assertThatThrownBy(() -> PromoEventBinaryCodec.encode(event))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("null");
+    }
+
+    @Test
+    void recognisesReadableFormatHeaders() {
+        assertThat(PromoEventSchema.isBinaryFormat("binary-v1")).isTrue();
+        assertThat(PromoEventSchema.isBinaryFormat(PromoEventSchema.FORMAT_BINARY)).isTrue();
+        assertThat(PromoEventSchema.isBinaryFormat("binary-v" + (PromoEventSchema.BINARY_VERSION + 1))).isFalse();
+        assertThat(PromoEventSchema.isBinaryFormat(PromoEventSchema.FORMAT_JSON)).isFalse();
+        assertThat(PromoEventSchema.isBinaryFormat("binary-vx")).isFalse();
+        assertThat(PromoEventSchema.isBinaryFormat(null)).isFalse();
+    }
+
+    private static PromoEventData fullEvent() {
+        PromoEventData.Payload payload = new PromoEventData.Payload(
+                "promo-1",
+                "Летняя распродажа",
+                "Up to 30% off",
+                30,
+                List.of("book-1", "book-2", "книга-3"),
+                "ENABLED",
+                LocalDateTime.of(2026, 6, 1, 0, 0),
+                LocalDateTime.of(2026, 8, 31, 23, 59, 59, 500_000_000),
+                LocalDateTime.of(2026, 5, 1, 12, 0),
+                LocalDateTime.of(2026, 5, 2, 12, 0),
+                Instant.parse("2026-05-02T12:00:00.123456789Z"),
+                7L,
+                6L,
+                List.of("book-2"),
+                List.of("book-9"));
+        return new PromoEventData("event-1", "PROMO_UPDATED", Instant.parse("2026-05-02T12:00:00Z"), payload);
+    }
+}
@@ -34,7 +34,9 @@ public class KafkaConfig {
 //        configProps.put("sasl.mechanism", kafkaProps.saslMechanism());
 //        configProps.put("sasl.jaas.config", kafkaProps.saslJaasConfig());
 
-        SenderOptions<String, PromoEvent> senderOptions = SenderOptions.create(configProps);
+        // caps records awaiting acknowledgement, send() stops requesting upstream beyond it
+        SenderOptions<String, PromoEvent> senderOptions = SenderOptions.<String, PromoEvent>create(configProps)
+                .maxInFlight(kafkaProps.producer().maxInFlight());
         return KafkaSender.create(senderOptions);
     }
 }
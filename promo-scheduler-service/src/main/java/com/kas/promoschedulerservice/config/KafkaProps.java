@@ -15,7 +15,8 @@ public record KafkaProps(
         Producer producer
 ) {
     public record Topics(
-            String promo
+            String promo,
+            String state
     ){}
     public record Producer(
             String acks,
@@ -23,6 +24,7 @@ public record KafkaProps(
             Integer retryBackoffMsConfig,
             Integer requestTimeoutMsConfig,
             String keySerializerClassConfig,
-            String valueSerializerClassConfig
+            String valueSerializerClassConfig,
+            Integer maxInFlight
     ){}
 }
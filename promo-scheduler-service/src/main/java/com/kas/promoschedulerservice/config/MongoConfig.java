@@ -1,6 +1,9 @@
 package com.kas.promoschedulerservice.config;
 
+import com.kas.promoschedulerservice.repository.CheckpointDao;
+import com.kas.promoschedulerservice.repository.LeaseDao;
 import com.kas.promoschedulerservice.repository.PromoDao;
+import com.kas.promoschedulerservice.util.codec.PromoCodec;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.reactivestreams.client.MongoClient;
@@ -11,6 +14,9 @@ import org.bson.codecs.pojo.PojoCodecProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 
@@ -28,6 +34,8 @@ public class MongoConfig {
     ConnectionString connectionString = new ConnectionString(mongoProps.server());
 
     CodecRegistry pojoCodecRegistry = fromRegistries(
+        // Promo is decoded for every scan and window refill, it gets a hand-written codec ahead of the POJO one
+        fromCodecs(new PromoCodec()),
         MongoClientSettings.getDefaultCodecRegistry(),
         fromProviders(PojoCodecProvider.builder().automatic(true).build())
     );
@@ -45,4 +53,20 @@ public class MongoConfig {
   public PromoDao bookDao(MongoClient client) {
     return new PromoDao(client);
   }
+
+  @Bean
+  public LeaseDao leaseDao(MongoClient client) {
+    return new LeaseDao(client);
+  }
+
+  @Bean
+  public CheckpointDao checkpointDao(MongoClient client) {
+    return new CheckpointDao(client);
+  }
+
+  @Bean
+  public MongoIndexRegistry mongoIndexRegistry(PromoDao promoDao, LeaseDao leaseDao, CheckpointDao checkpointDao) {
+    return new MongoIndexRegistry(List.of(promoDao, leaseDao, checkpointDao),
+        mongoProps.indexes().failOnCollectionScan());
+  }
 }
@@ -6,6 +6,10 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 @EnableConfigurationProperties
 @ConfigurationProperties(prefix = "mongo")
 public record MongoProps(
-        String server
+        String server,
+        Indexes indexes
 ) {
+    public record Indexes(
+            Boolean failOnCollectionScan
+    ){}
 }
\ No newline at end of file
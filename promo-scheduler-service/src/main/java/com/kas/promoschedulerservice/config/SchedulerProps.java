@@ -0,0 +1,59 @@
+package com.kas.promoschedulerservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "scheduler")
+public record SchedulerProps(
+        Promo promo,
+        Tick tick,
+        CatchUp catchUp,
+        Changes changes,
+        Spool spool,
+        Sharding sharding,
+        Events events
+) {
+    public record Promo(
+            Boolean enabled,
+            String cron,
+            Long initialDelay,
+            Duration lookAhead,
+            Duration refillInterval,
+            Integer chunkSize
+    ){}
+    public record Tick(
+            Integer concurrency,
+            Integer prefetch,
+            Duration budget
+    ){}
+    public record CatchUp(
+            Integer threshold,
+            Integer ratePerSecond
+    ){}
+    public record Changes(
+            Boolean enabled,
+            Duration checkpointInterval,
+            Duration pollInterval
+    ){}
+    public record Spool(
+            String directory,
+            DataSize segmentSize,
+            Duration drainInterval,
+            Integer drainBatchSize
+    ){}
+    public record Sharding(
+            Boolean enabled,
+            Integer shards,
+            Duration leaseTtl,
+            Duration heartbeatInterval
+    ){}
+    public record Events(
+            Boolean delta,
+            Integer fullEvery
+    ){}
+}
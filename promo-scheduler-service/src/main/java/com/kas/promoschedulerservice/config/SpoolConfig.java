@@ -0,0 +1,46 @@
+package com.kas.promoschedulerservice.config;
+
+import com.kas.promoschedulerservice.util.spool.EventSpool;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+@Configuration
+public class SpoolConfig {
+
+  private final SchedulerProps.Spool spoolProps;
+
+  public SpoolConfig(SchedulerProps schedulerProps) {
+    this.spoolProps = schedulerProps.spool();
+  }
+
+  /**
+   * The spool only protects events if its directory survives a restart, so there is no temp directory fallback.
+   */
+  @Bean(destroyMethod = "close")
+  public EventSpool eventSpool(MeterRegistry meterRegistry) {
+    if (spoolProps.directory() == null || spoolProps.directory().isBlank()) {
+      throw new IllegalStateException("scheduler.spool.directory is not set, point it at a persistent volume");
+    }
+    EventSpool spool = new EventSpool(Path.of(spoolProps.directory()), (int) spoolProps.segmentSize().toBytes());
+
+    Gauge.builder("promo.scheduler.spool.records", spool, EventSpool::pendingRecords)
+        .description("Promo events waiting in the spool")
+        .register(meterRegistry);
+    Gauge.builder("promo.scheduler.spool.size", spool, EventSpool::pendingBytes)
+        .description("Bytes of promo events waiting in the spool")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("promo.scheduler.spool.oldest.age", spool, s -> {
+          long oldest = s.oldestSpooledAt();
+          return oldest == 0L ? 0.0 : (System.currentTimeMillis() - oldest) / 1000.0;
+        })
+        .description("Age of the oldest promo event waiting in the spool")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    return spool;
+  }
+}
@@ -1,5 +1,6 @@
 package com.kas.promoschedulerservice.dto.event;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.kas.promoschedulerservice.model.Status;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -21,6 +22,8 @@ public class PromoEvent {
     private Instant occurredAt;
     private Payload payload;
 
+    // a delta leaves unchanged fields null, they are not written out
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     @Getter
     @Setter
     @AllArgsConstructor
@@ -29,7 +32,7 @@ public class PromoEvent {
         private String promoId;
         private String name;
         private String description;
-        private int discountPercent;
+        private Integer discountPercent;
         private List<String> bookIds;
         private Status status;
         private LocalDateTime startsAt;
@@ -37,11 +40,19 @@ public class PromoEvent {
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
         private Instant timestamp;
+        private Long version;
+        private Long baseVersion;
+        private List<String> addedBookIds;
+        private List<String> removedBookIds;
     }
 
     public enum EventType {
         PROMO_CREATED,
         PROMO_UPDATED,
-        PROMO_DELETED
+        PROMO_DELETED,
+        /**
+         * Only the changed fields of a PROMO_UPDATED, applicable to a copy at payload.baseVersion.
+         */
+        PROMO_DELTA
     }
 }
@@ -0,0 +1,24 @@
+package com.kas.promoschedulerservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Checkpoint {
+
+    @BsonId
+    private String id;
+    private LocalDateTime lastAt;
+    private String lastId;
+    private LocalDateTime updatedAt;
+    private String resumeToken;
+
+}
@@ -24,7 +24,7 @@ public class Promo {
     private String id;
     private String name;
     private String description;
-    private int discountPercent;
+    private Integer discountPercent;
     private List<String> bookIds;
     private Status status;
     private LocalDateTime startsAt;
@@ -33,4 +33,12 @@ public class Promo {
     private LocalDateTime updatedAt;
     private Long version;
 
+    public boolean isDueToStart(LocalDateTime now) {
+        return Status.STARTABLE.contains(status) && startsAt != null && !startsAt.isAfter(now)
+                && (endsAt == null || endsAt.isAfter(now));
+    }
+
+    public boolean isDueToEnd(LocalDateTime now) {
+        return Status.ENDABLE.contains(status) && endsAt != null && !endsAt.isAfter(now);
+    }
 }
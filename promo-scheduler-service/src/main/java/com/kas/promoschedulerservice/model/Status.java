@@ -3,6 +3,10 @@ package com.kas.promoschedulerservice.model;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonValue;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 public enum Status {
     ENABLED,
     PAUSED,
@@ -10,6 +14,15 @@ public enum Status {
     ENDED,
     DELETED;
 
+    /**
+     * Statuses a promo is started from, an ENABLED promo is already running.
+     */
+    public static final Set<Status> STARTABLE = Collections.unmodifiableSet(EnumSet.of(PENDING));
+    /**
+     * Statuses a promo is ended from.
+     */
+    public static final Set<Status> ENDABLE = Collections.unmodifiableSet(EnumSet.of(ENABLED, PENDING));
+
     @JsonCreator
     public static Status fromString(String status) {
         return Status.valueOf(status.toUpperCase());
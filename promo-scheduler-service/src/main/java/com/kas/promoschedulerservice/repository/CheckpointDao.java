@@ -0,0 +1,35 @@
+package com.kas.promoschedulerservice.repository;
+
+import com.kas.promoschedulerservice.model.Checkpoint;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.reactivestreams.client.MongoClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+public class CheckpointDao extends BaseDao<Checkpoint> {
+
+    public CheckpointDao(MongoClient mongoClient) {
+        super(mongoClient, "promo_db", "scheduler_checkpoints", Checkpoint.class);
+    }
+
+    public Mono<Checkpoint> findById(String id) {
+        return Mono.from(collection.find(Filters.eq("_id", id)));
+    }
+
+    public Mono<Checkpoint> save(Checkpoint checkpoint) {
+        return Mono.from(collection.replaceOne(Filters.eq("_id", checkpoint.getId()), checkpoint,
+                        new ReplaceOptions().upsert(true)))
+                .thenReturn(checkpoint);
+    }
+
+    public Mono<Checkpoint> saveResumeToken(String id, String resumeToken) {
+        return save(new Checkpoint(id, null, null, LocalDateTime.now(), resumeToken));
+    }
+
+    public Mono<Void> delete(String id) {
+        return Mono.from(collection.deleteOne(Filters.eq("_id", id)))
+                .then();
+    }
+}
@@ -0,0 +1,73 @@
+package com.kas.promoschedulerservice.repository;
+
+import com.kas.promoschedulerservice.model.Lease;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.conversions.Bson;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Time bounded leases, a lease belongs to its owner until expiresAt and can then be taken over by anyone.
+ */
+public class LeaseDao extends BaseDao<Lease> {
+
+    public LeaseDao(MongoClient mongoClient) {
+        super(mongoClient, "promo_db", "scheduler_leases", Lease.class);
+    }
+
+    @Override
+    public Map<String, FindPublisher<Lease>> queryPlans() {
+        return Map.of("countLive", collection.find(liveFilter("member:", LocalDateTime.now())));
+    }
+
+    /**
+     * Takes or renews the lease. Completes with false when another owner holds an unexpired lease, the upsert
+     * then collides with the existing _id.
+     */
+    public Mono<Boolean> tryAcquire(String id, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+        Bson filter = Filters.and(
+                Filters.eq("_id", id),
+                Filters.or(
+                        Filters.eq("owner", owner),
+                        Filters.lte("expiresAt", now)
+                )
+        );
+        Bson update = Updates.combine(
+                Updates.set("owner", owner),
+                Updates.set("expiresAt", expiresAt)
+        );
+        return Mono.from(collection.updateOne(filter, update, new UpdateOptions().upsert(true)))
+                .thenReturn(true)
+                .onErrorResume(MongoWriteException.class, e -> e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY
+                        ? Mono.just(false)
+                        : Mono.error(e));
+    }
+
+    public Mono<Void> release(String id, String owner) {
+        Bson filter = Filters.and(
+                Filters.eq("_id", id),
+                Filters.eq("owner", owner)
+        );
+        return Mono.from(collection.updateOne(filter, Updates.set("expiresAt", LocalDateTime.now())))
+                .then();
+    }
+
+    public Mono<Long> countLive(String idPrefix, LocalDateTime now) {
+        return Mono.from(collection.countDocuments(liveFilter(idPrefix, now)));
+    }
+
+    private static Bson liveFilter(String idPrefix, LocalDateTime now) {
+        return Filters.and(
+                Filters.regex("_id", "^" + idPrefix),
+                Filters.gt("expiresAt", now)
+        );
+    }
+}
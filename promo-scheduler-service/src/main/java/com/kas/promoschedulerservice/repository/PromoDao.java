@@ -3,23 +3,82 @@ package com.kas.promoschedulerservice.repository;
 
 import com.kas.promoschedulerservice.model.Promo;
 import com.kas.promoschedulerservice.model.Status;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.changestream.FullDocument;
 import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.ChangeStreamPublisher;
 import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.FindPublisher;
 import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.BsonDocument;
 import org.bson.conversions.Bson;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class PromoDao extends BaseDao<Promo> {
 
+    private static final Bson SCHEDULE_FIELDS = Projections.include("status", "startsAt", "endsAt");
+
     public PromoDao(MongoClient mongoClient) {
         super(mongoClient, "promo_db", "promos", Promo.class);
     }
 
+    @Override
+    public List<IndexModel> indexes() {
+        return List.of(
+                // shared with promo-service, the trailing _id orders the checkpointed pages
+                new IndexModel(Indexes.ascending("status", "startsAt", "_id"),
+                        new IndexOptions().name("status_startsAt__id")),
+                new IndexModel(Indexes.ascending("status", "endsAt", "_id"),
+                        new IndexOptions().name("status_endsAt__id")),
+                new IndexModel(Indexes.ascending("updatedAt"), new IndexOptions().name("updatedAt")),
+                new IndexModel(Indexes.ascending("createdAt"), new IndexOptions().name("createdAt"))
+        );
+    }
+
+    @Override
+    public List<String> obsoleteIndexes() {
+        // prefixes of status_startsAt__id and status_endsAt__id
+        return List.of("status_startsAt", "status_endsAt");
+    }
+
+    @Override
+    public Map<String, FindPublisher<Promo>> queryPlans() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, FindPublisher<Promo>> plans = new LinkedHashMap<>();
+        plans.put("findById", collection.find(Filters.eq("_id", "0")));
+        plans.put("findByIds", collection.find(Filters.in("_id", List.of("0", "1"))));
+        plans.put("findPromosToStart", promosToStartQuery(now, Filters.lt("_id", "8")));
+        plans.put("findPromosToEnd", promosToEndQuery(now, Filters.lt("_id", "8")));
+        plans.put("findPromosToStartPage", promosToStartPageQuery(now, Filters.empty(), now, "0", 1000));
+        plans.put("findPromosToEndPage", promosToEndPageQuery(now, Filters.empty(), now, "0", 1000));
+        plans.put("findChangedSince", changedSinceQuery(now));
+        plans.put("findStartsBetween", startsBetweenQuery(now, now.plusMinutes(10), Filters.empty()));
+        plans.put("findEndsBetween", endsBetweenQuery(now, now.plusMinutes(10), Filters.empty()));
+        return plans;
+    }
+
     public Mono<Promo> save(Promo promo) {
         if (promo.getId() == null) {
             promo.setId(UUID.randomUUID().toString());
@@ -89,24 +148,109 @@ public class PromoDao extends BaseDao<Promo> {
         return Mono.from(client.startSession());
     }
 
-    public Flux<Promo> findPromosToStart(LocalDateTime currentTime) {
-        Bson filter = Filters.and(
-            Filters.in("status", Status.ENABLED.name(), Status.PENDING.name()),
-            Filters.lte("startsAt", currentTime),
-            Filters.or(
-                Filters.exists("endsAt", false),
-                Filters.gt("endsAt", currentTime)
-            )
-        );
-        return Flux.from(collection.find(filter));
+    /**
+     * The scope filter restricts the query to the caller's shards, {@code Filters.empty()} for all promos.
+     */
+    public Flux<Promo> findPromosToStart(LocalDateTime currentTime, Bson scope) {
+        return Flux.from(promosToStartQuery(currentTime, scope));
     }
 
-    public Flux<Promo> findPromosToEnd(LocalDateTime currentTime) {
-        Bson filter = Filters.and(
-            Filters.in("status", Status.ENABLED.name(), Status.PENDING.name()),
-            Filters.lte("endsAt", currentTime)
-        );
-        return Flux.from(collection.find(filter));
+    public Flux<Promo> findPromosToEnd(LocalDateTime currentTime, Bson scope) {
+        return Flux.from(promosToEndQuery(currentTime, scope));
+    }
+
+    /**
+     * Counts due promos, stopping at limit so that a backlog check stays cheap however large the backlog is.
+     */
+    public Mono<Long> countPromosToStart(LocalDateTime currentTime, Bson scope, int limit) {
+        return Mono.from(collection.countDocuments(promosToStartFilter(currentTime, scope), new CountOptions().limit(limit)));
+    }
+
+    public Mono<Long> countPromosToEnd(LocalDateTime currentTime, Bson scope, int limit) {
+        return Mono.from(collection.countDocuments(promosToEndFilter(currentTime, scope), new CountOptions().limit(limit)));
+    }
+
+    /**
+     * Keyset page of due promos ordered by (startsAt, _id), starting after the given key, from the beginning when
+     * afterAt is null.
+     */
+    public Flux<Promo> findPromosToStartPage(LocalDateTime currentTime, Bson scope,
+                                             LocalDateTime afterAt, String afterId, int limit) {
+        return Flux.from(promosToStartPageQuery(currentTime, scope, afterAt, afterId, limit));
+    }
+
+    /**
+     * Keyset page of due promos ordered by (endsAt, _id), starting after the given key, from the beginning when
+     * afterAt is null.
+     */
+    public Flux<Promo> findPromosToEndPage(LocalDateTime currentTime, Bson scope,
+                                           LocalDateTime afterAt, String afterId, int limit) {
+        return Flux.from(promosToEndPageQuery(currentTime, scope, afterAt, afterId, limit));
+    }
+
+    /**
+     * Inserts, updates and replacements of promos with the full document, resumed after the token when given.
+     */
+    public ChangeStreamPublisher<Promo> watch(BsonDocument resumeAfter) {
+        ChangeStreamPublisher<Promo> changes = collection
+            .watch(List.of(Aggregates.match(Filters.in("operationType", "insert", "update", "replace"))), Promo.class)
+            .fullDocument(FullDocument.UPDATE_LOOKUP);
+        return resumeAfter == null ? changes : changes.resumeAfter(resumeAfter);
+    }
+
+    /**
+     * Promos created or updated after the given time, the polling substitute for {@link #watch}.
+     */
+    public Flux<Promo> findChangedSince(LocalDateTime since) {
+        return Flux.from(changedSinceQuery(since));
+    }
+
+    /**
+     * Promos due to start in (from, to], only id and schedule fields are loaded.
+     */
+    public Flux<Promo> findStartsBetween(LocalDateTime from, LocalDateTime to, Bson scope) {
+        return Flux.from(startsBetweenQuery(from, to, scope));
+    }
+
+    /**
+     * Promos due to end in (from, to], only id and schedule fields are loaded.
+     */
+    public Flux<Promo> findEndsBetween(LocalDateTime from, LocalDateTime to, Bson scope) {
+        return Flux.from(endsBetweenQuery(from, to, scope));
+    }
+
+    public Flux<Promo> findByIds(Collection<String> ids, Bson scope) {
+        return Flux.from(collection.find(Filters.and(Filters.in("_id", ids), scope)));
+    }
+
+    /**
+     * Moves every promo to the given status with one unordered bulkWrite, each update is conditional on the version
+     * the promo was read with. Returns the ids that were applied, the rest lost to a concurrent update.
+     * Per-document outcomes are only re-read when the matched count shows a conflict.
+     */
+    public Mono<Set<String>> bulkTransition(List<Promo> promos, Status status, LocalDateTime updatedAt) {
+        if (promos.isEmpty()) {
+            return Mono.just(Set.of());
+        }
+        List<UpdateOneModel<Promo>> updates = new ArrayList<>(promos.size());
+        for (Promo promo : promos) {
+            updates.add(new UpdateOneModel<>(
+                Filters.and(
+                    Filters.eq("_id", promo.getId()),
+                    Filters.eq("version", promo.getVersion())
+                ),
+                Updates.combine(
+                    Updates.set("status", status),
+                    Updates.set("updatedAt", updatedAt),
+                    Updates.set("version", nextVersion(promo))
+                )
+            ));
+        }
+        return Mono.from(collection.bulkWrite(updates, new BulkWriteOptions().ordered(false)))
+            .flatMap(result -> result.getMatchedCount() == promos.size()
+                ? Mono.just(promos.stream().map(Promo::getId).collect(Collectors.toSet()))
+                : findApplied(promos))
+            .onErrorResume(MongoBulkWriteException.class, e -> findApplied(promos));
     }
 
     public Mono<Promo> update(String id, Long expectedVersion, Promo promo) {
@@ -135,4 +279,105 @@ public class PromoDao extends BaseDao<Promo> {
                 return findById(id);
             });
     }
+
+    private Mono<Set<String>> findApplied(List<Promo> promos) {
+        Map<String, Long> expected = new HashMap<>(promos.size() * 2);
+        for (Promo promo : promos) {
+            expected.put(promo.getId(), nextVersion(promo));
+        }
+        return Flux.from(collection.find(Filters.in("_id", expected.keySet())).projection(Projections.include("version")))
+            .filter(promo -> expected.get(promo.getId()).equals(promo.getVersion()))
+            .map(Promo::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private static long nextVersion(Promo promo) {
+        return (promo.getVersion() == null ? 0L : promo.getVersion()) + 1;
+    }
+
+    private FindPublisher<Promo> promosToStartQuery(LocalDateTime currentTime, Bson scope) {
+        return collection.find(promosToStartFilter(currentTime, scope));
+    }
+
+    private FindPublisher<Promo> promosToEndQuery(LocalDateTime currentTime, Bson scope) {
+        return collection.find(promosToEndFilter(currentTime, scope));
+    }
+
+    private FindPublisher<Promo> promosToStartPageQuery(LocalDateTime currentTime, Bson scope,
+                                                        LocalDateTime afterAt, String afterId, int limit) {
+        return collection.find(Filters.and(promosToStartFilter(currentTime, scope), after("startsAt", afterAt, afterId)))
+            .sort(Sorts.ascending("startsAt", "_id"))
+            .limit(limit);
+    }
+
+    private FindPublisher<Promo> promosToEndPageQuery(LocalDateTime currentTime, Bson scope,
+                                                      LocalDateTime afterAt, String afterId, int limit) {
+        return collection.find(Filters.and(promosToEndFilter(currentTime, scope), after("endsAt", afterAt, afterId)))
+            .sort(Sorts.ascending("endsAt", "_id"))
+            .limit(limit);
+    }
+
+    private FindPublisher<Promo> changedSinceQuery(LocalDateTime since) {
+        return collection.find(Filters.or(
+            Filters.gt("updatedAt", since),
+            Filters.gt("createdAt", since)
+        ));
+    }
+
+    private static Bson after(String field, LocalDateTime afterAt, String afterId) {
+        if (afterAt == null) {
+            return Filters.empty();
+        }
+        return Filters.or(
+            Filters.gt(field, afterAt),
+            Filters.and(Filters.eq(field, afterAt), Filters.gt("_id", afterId))
+        );
+    }
+
+    /**
+     * Keep in step with {@link Promo#isDueToStart} and {@link Promo#isDueToEnd}.
+     */
+    private static Bson statusIn(Set<Status> statuses) {
+        return Filters.in("status", statuses.stream().map(Status::name).toList());
+    }
+
+    private Bson promosToStartFilter(LocalDateTime currentTime, Bson scope) {
+        return Filters.and(
+            statusIn(Status.STARTABLE),
+            Filters.lte("startsAt", currentTime),
+            Filters.or(
+                Filters.exists("endsAt", false),
+                Filters.gt("endsAt", currentTime)
+            ),
+            scope
+        );
+    }
+
+    private Bson promosToEndFilter(LocalDateTime currentTime, Bson scope) {
+        return Filters.and(
+            statusIn(Status.ENDABLE),
+            Filters.lte("endsAt", currentTime),
+            scope
+        );
+    }
+
+    private FindPublisher<Promo> startsBetweenQuery(LocalDateTime from, LocalDateTime to, Bson scope) {
+        Bson filter = Filters.and(
+            statusIn(Status.STARTABLE),
+            Filters.gt("startsAt", from),
+            Filters.lte("startsAt", to),
+            scope
+        );
+        return collection.find(filter).projection(SCHEDULE_FIELDS);
+    }
+
+    private FindPublisher<Promo> endsBetweenQuery(LocalDateTime from, LocalDateTime to, Bson scope) {
+        Bson filter = Filters.and(
+            statusIn(Status.ENDABLE),
+            Filters.gt("endsAt", from),
+            Filters.lte("endsAt", to),
+            scope
+        );
+        return collection.find(filter).projection(SCHEDULE_FIELDS);
+    }
 }
@@ -0,0 +1,132 @@
+package com.kas.promoschedulerservice.service;
+
+import com.kas.promoschedulerservice.config.SchedulerProps;
+import com.kas.promoschedulerservice.model.Promo;
+import com.kas.promoschedulerservice.repository.CheckpointDao;
+import com.kas.promoschedulerservice.repository.PromoDao;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.BsonDocument;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Feeds created and edited promos into {@link PromoTransitionScheduler} as they change, so a promo created with a
+ * past startsAt or edited to end now is handled within moments instead of at the next sweep.
+ * <p>
+ * Listens to a change stream on promo_db.promos and persists the resume token at most once per checkpoint interval,
+ * a restart replays from there and the scheduler drops duplicates. When the server has no change streams
+ * (standalone mongod) it polls createdAt/updatedAt instead.
+ */
+@Slf4j
+@Component
+public class PromoChangeListener {
+
+  private static final String CHECKPOINT_ID = "change-stream:promos";
+  // $changeStream is only supported on replica sets
+  private static final int CHANGE_STREAM_UNSUPPORTED = 40573;
+  private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+  private final PromoDao promoDao;
+  private final CheckpointDao checkpointDao;
+  private final PromoTransitionScheduler transitionScheduler;
+  private final SchedulerProps.Changes props;
+
+  private Disposable subscription;
+
+  public PromoChangeListener(PromoDao promoDao, CheckpointDao checkpointDao,
+                             PromoTransitionScheduler transitionScheduler, SchedulerProps schedulerProps) {
+    this.promoDao = promoDao;
+    this.checkpointDao = checkpointDao;
+    this.transitionScheduler = transitionScheduler;
+    this.props = schedulerProps.changes();
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return;
+    }
+    subscription = listen()
+        .onErrorResume(PromoChangeListener::isHistoryLost, e -> {
+          // the gap is covered by the sweep, start over from the current position
+          log.warn("Change stream resume point is no longer in the oplog, restarting from now");
+          return checkpointDao.delete(CHECKPOINT_ID).then(Mono.error(e));
+        })
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+            .maxBackoff(Duration.ofSeconds(30))
+            .filter(e -> !isUnsupported(e))
+            .doBeforeRetry(signal -> log.warn("Promo change stream failed, reconnecting: {}",
+                signal.failure().getMessage())))
+        .onErrorResume(PromoChangeListener::isUnsupported, e -> {
+          log.warn("Change streams are not available, polling promo changes every {}", props.pollInterval());
+          return poll();
+        })
+        .subscribe(null, e -> log.error("Promo change listener stopped: {}", e.getMessage()));
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  private Mono<Void> listen() {
+    return checkpointDao.findById(CHECKPOINT_ID)
+        .map(checkpoint -> Optional.ofNullable(checkpoint.getResumeToken()))
+        .defaultIfEmpty(Optional.empty())
+        .flatMapMany(token -> {
+          log.info("Listening to promo changes{}", token.isPresent() ? " from the last resume token" : "");
+          return Flux.from(promoDao.watch(token.map(BsonDocument::parse).orElse(null)));
+        })
+        .doOnNext(change -> {
+          Promo promo = change.getFullDocument();
+          if (promo != null) {
+            transitionScheduler.offer(promo);
+          }
+        })
+        .map(ChangeStreamDocument::getResumeToken)
+        .sample(props.checkpointInterval())
+        .concatMap(token -> checkpointDao.saveResumeToken(CHECKPOINT_ID, token.toJson()))
+        .then();
+  }
+
+  private Mono<Void> poll() {
+    AtomicReference<LocalDateTime> since = new AtomicReference<>(LocalDateTime.now());
+    return Flux.interval(props.pollInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> {
+          // overlap by one interval so writes committed late or with a skewed clock are not missed
+          LocalDateTime next = LocalDateTime.now().minus(props.pollInterval());
+          return promoDao.findChangedSince(since.get())
+              .doOnNext(transitionScheduler::offer)
+              .then(Mono.fromRunnable(() -> since.set(next)))
+              .onErrorResume(e -> {
+                log.error("Failed to poll promo changes: {}", e.getMessage());
+                return Mono.empty();
+              });
+        })
+        .then();
+  }
+
+  private static boolean isUnsupported(Throwable e) {
+    return e instanceof MongoException mongoException && mongoException.getCode() == CHANGE_STREAM_UNSUPPORTED;
+  }
+
+  private static boolean isHistoryLost(Throwable e) {
+    return e instanceof MongoException mongoException && mongoException.getCode() == CHANGE_STREAM_HISTORY_LOST;
+  }
+}
@@ -1,11 +1,19 @@
 package com.kas.promoschedulerservice.service;
 
+import com.kas.promoschedulerservice.config.KafkaProps;
+import com.kas.promoschedulerservice.config.SchedulerProps;
 import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import com.kas.promoschedulerservice.model.Checkpoint;
 import com.kas.promoschedulerservice.model.Promo;
 import com.kas.promoschedulerservice.model.Status;
+import com.kas.promoschedulerservice.repository.CheckpointDao;
 import com.kas.promoschedulerservice.repository.PromoDao;
+import com.kas.promoschedulerservice.util.spool.EventSpool;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.bson.conversions.Bson;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
@@ -13,120 +21,322 @@ import reactor.core.publisher.Mono;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderRecord;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class PromoSchedulerService {
 
+  // what the transition was, e.g. "Promo activated", sent next to the event so the payload stays the promo's own
+  private static final String TRANSITION_HEADER = "promo-transition";
+
   private final PromoDao promoDao;
   private final KafkaSender<String, PromoEvent> kafkaSender;
+  private final KafkaProps kafkaProps;
+  private final SchedulerProps schedulerProps;
+  private final ShardLeaseManager shardLeaseManager;
+  private final TickExecutor tickExecutor;
+  private final CheckpointDao checkpointDao;
+  private final SchedulerMetrics schedulerMetrics;
+  private final EventSpool eventSpool;
 
-  @Scheduled(cron = "${scheduler.promo.cron:0 * * * * *}")
-  public void checkAndUpdatePromoStatuses() {
-    log.info("Starting promo status check scheduler...");
+  private enum Phase {
+    START(Status.ENABLED, "Promo activated"),
+    END(Status.ENDED, "Promo ended");
+
+    private final Status status;
+    private final String description;
+
+    Phase(Status status, String description) {
+      this.status = status;
+      this.description = description;
+    }
+  }
 
-    checkAndStartPromos()
-        .then(checkAndEndPromos()) // Check for promos that should end
-        .doOnSuccess(v -> log.info("Promo status check completed successfully"))
-        .doOnError(error -> log.error("Promo status check failed: {}", error.getMessage()))
-        .subscribe();
+  private record CatchUpPage(Checkpoint checkpoint, boolean done) {}
+
+  /**
+   * Safety sweep, transitions are normally fired on time by {@link PromoTransitionScheduler}. The sweep picks up
+   * whatever it missed: PENDING promos past their start and promos past their end.
+   */
+  @Scheduled(cron = "${scheduler.promo.cron:0 */5 * * * *}")
+  public void checkAndUpdatePromoStatuses() {
+    tickExecutor.submit(() -> {
+      log.info("Starting promo status check scheduler...");
+      return checkAndStartPromos()
+          .then(checkAndEndPromos()) // Check for promos that should end
+          .doOnSuccess(v -> log.info("Promo status check completed successfully"))
+          .doOnError(error -> log.error("Promo status check failed: {}", error.getMessage()));
+    });
   }
 
   private Mono<Void> checkAndStartPromos() {
-    log.info("Checking for promos that should start...");
-    LocalDateTime now = LocalDateTime.now();
-    log.info("-----------------{}----------------", Instant.now());
-
-    return promoDao.findPromosToStart(now)
-        .flatMap(promo -> {
-          if (promo.getStatus().equals(Status.ENABLED) || promo.getStatus().equals(Status.PENDING) && promo.getStartsAt().isBefore(now)) {
-            return activatePromo(promo);
-          } else if (promo.getStatus() == Status.ENABLED && promo.getStartsAt().isAfter(now)) {
-            return setPromoToPending(promo);
-          }
-          return Mono.just(promo);
-        })
-        .then();
+    return Mono.defer(() -> {
+      log.info("Checking for promos that should start...");
+      return sweepOrCatchUp(Phase.START);
+    });
   }
 
   private Mono<Void> checkAndEndPromos() {
-    log.info("Checking for promos that should end...");
+    return Mono.defer(() -> {
+      log.info("Checking for promos that should end...");
+      return sweepOrCatchUp(Phase.END);
+    });
+  }
+
+  /**
+   * A small number of due promos is swept in one stream. A backlog, usually left by downtime, or an unfinished
+   * catch-up switches to catch-up mode instead. Held shards are swept one by one with a checkpoint each, so a
+   * catch-up is resumed by whichever replica holds the shard next.
+   */
+  private Mono<Void> sweepOrCatchUp(Phase phase) {
     LocalDateTime now = LocalDateTime.now();
-    return promoDao.findPromosToEnd(now)
-        .flatMap(promo -> {
-          if ((promo.getStatus() == Status.ENABLED || promo.getStatus() == Status.PENDING) &&
-              promo.getEndsAt() != null && promo.getEndsAt().isBefore(now)) {
-            // Promo should be ended
-            return endPromo(promo);
-          }
-          return Mono.just(promo);
-        })
+    return Flux.fromIterable(shardLeaseManager.shardScopes().entrySet())
+        .concatMap(scope -> sweepOrCatchUp(phase, now, scope.getKey(), scope.getValue()))
         .then();
   }
 
-  private Mono<Promo> activatePromo(Promo promo) {
-    log.info("Activating promo: {}", promo.getId());
-    promo.setStatus(Status.ENABLED);
-    promo.setUpdatedAt(LocalDateTime.now());
-
-    return promoDao.update(promo.getId(), promo.getVersion(), promo)
-        .flatMap(updatedPromo ->
-            sendPromoEvent(updatedPromo, PromoEvent.EventType.PROMO_UPDATED, "Promo activated")
-        )
-        .doOnSuccess(updated -> log.info("Promo {} activated successfully", promo.getId()))
-        .doOnError(error -> log.error("Failed to activate promo {}: {}", promo.getId(), error.getMessage()));
-  }
-
-  private Mono<Promo> setPromoToPending(Promo promo) {
-    log.info("Setting promo to pending: {}", promo.getId());
-    promo.setStatus(Status.PENDING);
-    promo.setUpdatedAt(LocalDateTime.now());
-
-    return promoDao.update(promo.getId(), promo.getVersion(), promo)
-        .flatMap(updatedPromo ->
-            sendPromoEvent(updatedPromo, PromoEvent.EventType.PROMO_UPDATED, "Promo set to pending")
-        );
-  }
-
-  private Mono<Promo> endPromo(Promo promo) {
-    log.info("Ending promo: {}", promo.getId());
-    promo.setStatus(Status.ENDED);
-    promo.setUpdatedAt(LocalDateTime.now());
-
-    return promoDao.update(promo.getId(), promo.getVersion(), promo)
-        .flatMap(updatedPromo ->
-            sendPromoEvent(updatedPromo, PromoEvent.EventType.PROMO_UPDATED, "Promo ended")
-        )
-        .doOnSuccess(updated -> log.info("Promo {} ended successfully", promo.getId()))
-        .doOnError(error -> log.error("Failed to end promo {}: {}", promo.getId(), error.getMessage()));
-  }
-
-  private Mono<Promo> sendPromoEvent(Promo promo, PromoEvent.EventType eventType, String description) {
-    PromoEvent event = buildPromoEvent(promo, eventType, description);
-    SenderRecord<String, PromoEvent, String> senderRecord = SenderRecord.create(
-        "promo-topic",
-        null,
-        System.currentTimeMillis(),
-        promo.getId(),
-        event,
-        null
-    );
-
-    return Mono.from(kafkaSender.send(Mono.just(senderRecord)))
-        .thenReturn(promo)
-        .doOnNext(result -> log.debug("Sent {} event for promo: {}", eventType, promo.getId()))
+  private Mono<Void> sweepOrCatchUp(Phase phase, LocalDateTime now, String scopeKey, Bson scope) {
+    String checkpointId = "catch-up:" + phase.name().toLowerCase() + ":" + scopeKey;
+    int threshold = schedulerProps.catchUp().threshold();
+
+    return checkpointDao.findById(checkpointId)
+        .map(Optional::of)
+        .defaultIfEmpty(Optional.empty())
+        .flatMap(checkpoint -> checkpoint.isPresent()
+            ? catchUp(phase, now, scope, checkpoint.get())
+            : countDue(phase, now, scope, threshold + 1)
+                .flatMap(due -> due > threshold
+                    ? catchUp(phase, now, scope, new Checkpoint(checkpointId, null, null, now, null))
+                    : transition(findDue(phase, now, scope), phase.status, phase.description).then()));
+  }
+
+  /**
+   * Works through the backlog in keyset pages ordered by the transition time. A checkpoint is saved after every
+   * page, so a failure or restart resumes after the last completed page, and is removed once the backlog is drained.
+   * Pages are paced to scheduler.catch-up.rate-per-second and stop when the tick budget is spent.
+   */
+  private Mono<Void> catchUp(Phase phase, LocalDateTime now, Bson scope, Checkpoint checkpoint) {
+    log.info("Catching up on {} backlog after {}", phase, checkpoint.getLastAt());
+    return catchUpPage(phase, now, scope, checkpoint)
+        .expand(page -> page.done()
+            ? Mono.empty()
+            : tickExecutor.hasBudget().flatMap(budget -> budget
+                ? catchUpPage(phase, now, scope, page.checkpoint())
+                : Mono.empty()))
+        .last()
+        .flatMap(page -> {
+          if (!page.done()) {
+            return Mono.empty();
+          }
+          log.info("{} backlog caught up", phase);
+          return checkpointDao.delete(checkpoint.getId());
+        });
+  }
+
+  private Mono<CatchUpPage> catchUpPage(Phase phase, LocalDateTime now, Bson scope, Checkpoint checkpoint) {
+    int pageSize = schedulerProps.promo().chunkSize();
+    long started = System.nanoTime();
+    return findDuePage(phase, now, scope, checkpoint, pageSize)
+        .collectList()
+        .flatMap(page -> {
+          if (page.isEmpty()) {
+            return Mono.just(new CatchUpPage(checkpoint, true));
+          }
+          Promo last = page.get(page.size() - 1);
+          Checkpoint next = new Checkpoint(checkpoint.getId(),
+              phase == Phase.START ? last.getStartsAt() : last.getEndsAt(), last.getId(), LocalDateTime.now(), null);
+          return applyChunk(page, phase.status, phase.description)
+              .then(checkpointDao.save(next))
+              .then(pace(page.size(), started))
+              .thenReturn(new CatchUpPage(next, page.size() < pageSize));
+        });
+  }
+
+  private Mono<Void> pace(int processed, long startedNanos) {
+    long minimumNanos = processed * 1_000_000_000L / schedulerProps.catchUp().ratePerSecond();
+    long remainingNanos = minimumNanos - (System.nanoTime() - startedNanos);
+    return remainingNanos > 0 ? Mono.delay(Duration.ofNanos(remainingNanos)).then() : Mono.empty();
+  }
+
+  private Mono<Long> countDue(Phase phase, LocalDateTime now, Bson scope, int limit) {
+    return phase == Phase.START
+        ? promoDao.countPromosToStart(now, scope, limit)
+        : promoDao.countPromosToEnd(now, scope, limit);
+  }
+
+  private Flux<Promo> findDue(Phase phase, LocalDateTime now, Bson scope) {
+    return phase == Phase.START
+        ? promoDao.findPromosToStart(now, scope)
+        : promoDao.findPromosToEnd(now, scope);
+  }
+
+  private Flux<Promo> findDuePage(Phase phase, LocalDateTime now, Bson scope, Checkpoint after, int limit) {
+    return phase == Phase.START
+        ? promoDao.findPromosToStartPage(now, scope, after.getLastAt(), after.getLastId(), limit)
+        : promoDao.findPromosToEndPage(now, scope, after.getLastAt(), after.getLastId(), limit);
+  }
+
+  /**
+   * Activates the promos that are still due to start, the schedule may have changed since they were loaded.
+   */
+  public Mono<Integer> activateDue(Collection<String> ids) {
+    LocalDateTime now = LocalDateTime.now();
+    return transition(findByIds(ids)
+            .filter(promo -> promo.isDueToStart(now)),
+        Status.ENABLED, "Promo activated");
+  }
+
+  /**
+   * Ends the promos that are still due to end, the schedule may have changed since they were loaded.
+   */
+  public Mono<Integer> endDue(Collection<String> ids) {
+    LocalDateTime now = LocalDateTime.now();
+    return transition(findByIds(ids)
+            .filter(promo -> promo.isDueToEnd(now)),
+        Status.ENDED, "Promo ended");
+  }
+
+  private Flux<Promo> findByIds(Collection<String> ids) {
+    // promos of shards handed over since they were loaded are left to their new owner
+    return shardLeaseManager.scope()
+        .map(scope -> Flux.fromIterable(ids)
+            .buffer(schedulerProps.promo().chunkSize())
+            .concatMap(chunk -> promoDao.findByIds(chunk, scope)))
+        .orElse(Flux.empty());
+  }
+
+  /**
+   * Applies the status change chunk by chunk: one version-checked bulkWrite and one batched Kafka send per chunk,
+   * with as many chunks in flight as the tick executor allows. Emits the number of promos transitioned.
+   */
+  private Mono<Integer> transition(Flux<Promo> promos, Status status, String description) {
+    return tickExecutor.dispatch(promos.buffer(schedulerProps.promo().chunkSize()),
+            chunk -> transitionChunk(chunk, status, description))
+        .reduce(0, Integer::sum);
+  }
+
+  private Mono<Integer> transitionChunk(List<Promo> chunk, Status status, String description) {
+    return applyChunk(chunk, status, description)
         .onErrorResume(error -> {
-          log.error("Failed to send Kafka event for promo {}: {}", promo.getId(), error.getMessage());
-          return Mono.just(promo); // Continue even if Kafka fails
+          // left as they were, the next sweep retries them
+          log.error("Failed to move {} promos to {}: {}", chunk.size(), status, error.getMessage());
+          return Mono.just(0);
+        });
+  }
+
+  private Mono<Integer> applyChunk(List<Promo> chunk, Status status, String description) {
+    LocalDateTime updatedAt = LocalDateTime.now();
+    return promoDao.bulkTransition(chunk, status, updatedAt)
+        .flatMap(applied -> {
+          if (applied.size() < chunk.size()) {
+            log.warn("{} of {} promos changed concurrently, skipped moving them to {}",
+                chunk.size() - applied.size(), chunk.size(), status);
+          }
+          List<Promo> transitioned = new ArrayList<>(applied.size());
+          for (Promo promo : chunk) {
+            if (applied.contains(promo.getId())) {
+              promo.setStatus(status);
+              promo.setUpdatedAt(updatedAt);
+              promo.setVersion((promo.getVersion() == null ? 0L : promo.getVersion()) + 1);
+              transitioned.add(promo);
+            }
+          }
+          schedulerMetrics.recordChunk(status, chunk.size(), transitioned, updatedAt);
+          log.info("Moved {} promos to {}", transitioned.size(), status);
+          return sendPromoEvents(transitioned, description)
+              .thenReturn(transitioned.size());
         });
   }
 
-  private PromoEvent buildPromoEvent(Promo promo, PromoEvent.EventType eventType, String description) {
+  /**
+   * Events that fail to send go to the spool and are replayed by {@link SpoolDrainer}. While the spool holds
+   * anything new events are appended behind it, so consumers still see each promo's events in order. The spool
+   * keeps full snapshots, a replay after an outage resyncs consumers rather than relying on the deltas they missed.
+   * Snapshots carry the promo's own description, the transition text only travels in a header of the live event.
+   */
+  private Mono<Void> sendPromoEvents(List<Promo> promos, String description) {
+    if (promos.isEmpty()) {
+      return Mono.empty();
+    }
+    List<PromoEvent> snapshots = new ArrayList<>(promos.size());
+    List<PromoEvent> events = new ArrayList<>(promos.size());
+    for (Promo promo : promos) {
+      PromoEvent snapshot = buildPromoEvent(promo, PromoEvent.EventType.PROMO_UPDATED);
+      snapshots.add(snapshot);
+      events.add(sendsDelta(promo) ? buildStatusDeltaEvent(promo) : snapshot);
+    }
+    if (!eventSpool.isEmpty()) {
+      return spool(snapshots);
+    }
+    // record i goes to the event topic and record i + n, always a full snapshot, to the compacted state topic
+    int n = events.size();
+    byte[] transition = description.getBytes(StandardCharsets.UTF_8);
+    Flux<SenderRecord<String, PromoEvent, Integer>> records = Flux.range(0, 2 * n)
+        .map(i -> SenderRecord.create(new ProducerRecord<>(
+            i < n ? kafkaProps.topics().promo() : kafkaProps.topics().state(),
+            null,
+            System.currentTimeMillis(),
+            events.get(i % n).getPayload().getPromoId(),
+            i < n ? events.get(i) : snapshots.get(i - n),
+            i < n ? new RecordHeaders().add(TRANSITION_HEADER, transition) : new RecordHeaders()
+        ), i));
+
+    long started = System.nanoTime();
+    BitSet acknowledged = new BitSet(2 * n);
+    AtomicInteger results = new AtomicInteger();
+    return kafkaSender.send(records)
+        .doOnNext(result -> {
+          results.incrementAndGet();
+          boolean sent = result.exception() == null;
+          schedulerMetrics.recordKafkaSend(System.nanoTime() - started, sent);
+          if (sent) {
+            acknowledged.set(result.correlationMetadata());
+          } else {
+            log.error("Failed to send Kafka event for promo {}: {}",
+                events.get(result.correlationMetadata() % n).getPayload().getPromoId(),
+                result.exception().getMessage());
+          }
+        })
+        .then()
+        .onErrorResume(error -> {
+          long elapsed = System.nanoTime() - started;
+          for (int i = results.get(); i < 2 * n; i++) {
+            schedulerMetrics.recordKafkaSend(elapsed, false);
+          }
+          log.error("Failed to send {} Kafka events: {}", promos.size(), error.getMessage());
+          return Mono.empty(); // Continue even if Kafka fails, unsent events are spooled
+        })
+        .then(Mono.defer(() -> {
+          List<PromoEvent> unsent = new ArrayList<>();
+          for (int i = 0; i < n; i++) {
+            if (!acknowledged.get(i) || !acknowledged.get(i + n)) {
+              unsent.add(snapshots.get(i));
+            }
+          }
+          return unsent.isEmpty() ? Mono.empty() : spool(unsent);
+        }));
+  }
+
+  private Mono<Void> spool(List<PromoEvent> events) {
+    return eventSpool.appendAll(events)
+        .doOnNext(spooled -> log.warn("Spooled {} promo events for later delivery", spooled))
+        .then();
+  }
+
+  private static PromoEvent buildPromoEvent(Promo promo, PromoEvent.EventType eventType) {
     PromoEvent event = new PromoEvent();
     event.setEventId(promo.getId());
     event.setEventType(eventType);
@@ -135,7 +345,7 @@ public class PromoSchedulerService {
     PromoEvent.Payload payload = new PromoEvent.Payload();
     payload.setPromoId(promo.getId());
     payload.setName(promo.getName());
-    payload.setDescription(description);
+    payload.setDescription(promo.getDescription());
     payload.setDiscountPercent(promo.getDiscountPercent());
     payload.setBookIds(promo.getBookIds());
     payload.setStatus(promo.getStatus());
@@ -144,6 +354,33 @@ public class PromoSchedulerService {
     payload.setCreatedAt(promo.getCreatedAt());
     payload.setUpdatedAt(promo.getUpdatedAt());
     payload.setTimestamp(Instant.now());
+    payload.setVersion(promo.getVersion());
+
+    event.setPayload(payload);
+    return event;
+  }
+
+  private boolean sendsDelta(Promo promo) {
+    SchedulerProps.Events props = schedulerProps.events();
+    return props.delta() && promo.getVersion() != null && promo.getVersion() % props.fullEvery() != 0;
+  }
+
+  /**
+   * A transition only changes status, updatedAt and version, the delta leaves out name, description and bookIds.
+   */
+  private static PromoEvent buildStatusDeltaEvent(Promo promo) {
+    PromoEvent event = new PromoEvent();
+    event.setEventId(promo.getId());
+    event.setEventType(PromoEvent.EventType.PROMO_DELTA);
+    event.setOccurredAt(Instant.now());
+
+    PromoEvent.Payload payload = new PromoEvent.Payload();
+    payload.setPromoId(promo.getId());
+    payload.setStatus(promo.getStatus());
+    payload.setUpdatedAt(promo.getUpdatedAt());
+    payload.setTimestamp(Instant.now());
+    payload.setVersion(promo.getVersion());
+    payload.setBaseVersion(promo.getVersion() - 1);
 
     event.setPayload(payload);
     return event;
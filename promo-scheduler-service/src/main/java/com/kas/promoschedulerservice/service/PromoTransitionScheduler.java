@@ -0,0 +1,228 @@
+package com.kas.promoschedulerservice.service;
+
+import com.kas.promoschedulerservice.config.SchedulerProps;
+import com.kas.promoschedulerservice.model.Promo;
+import com.kas.promoschedulerservice.model.Status;
+import com.kas.promoschedulerservice.repository.PromoDao;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.conversions.Bson;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fires promo start/end transitions at their exact instant. Transitions inside the look-ahead window are held in
+ * a priority queue ordered by due time, a single timer is armed for the head of the queue. The window is topped up
+ * incrementally every refill interval by querying only (loadedUntil, now + lookAhead], so an idle catalogue costs
+ * two index range scans per interval.
+ */
+@Slf4j
+@Component
+public class PromoTransitionScheduler {
+
+  enum Kind { START, END }
+
+  record Transition(String promoId, Kind kind, LocalDateTime at) {}
+
+  private final PromoDao promoDao;
+  private final PromoSchedulerService promoSchedulerService;
+  private final ShardLeaseManager shardLeaseManager;
+  private final SchedulerProps.Promo props;
+
+  private final PriorityQueue<Transition> queue = new PriorityQueue<>(Comparator.comparing(Transition::at));
+  private final Set<Transition> queued = new HashSet<>();
+  private final Scheduler timer = Schedulers.newSingle("promo-transitions");
+  private final AtomicBoolean refilling = new AtomicBoolean(false);
+
+  private LocalDateTime loadedUntil;
+  private long shardGeneration;
+  private Disposable armed;
+  private LocalDateTime armedFor;
+
+  public PromoTransitionScheduler(PromoDao promoDao, PromoSchedulerService promoSchedulerService,
+                                  ShardLeaseManager shardLeaseManager, SchedulerProps schedulerProps) {
+    this.promoDao = promoDao;
+    this.promoSchedulerService = promoSchedulerService;
+    this.shardLeaseManager = shardLeaseManager;
+    this.props = schedulerProps.promo();
+    if (props.refillInterval().compareTo(props.lookAhead()) >= 0) {
+      throw new IllegalArgumentException("scheduler.promo.refill-interval must be shorter than look-ahead");
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return;
+    }
+    log.info("Starting promo transition scheduler, look-ahead {}, refill every {}",
+        props.lookAhead(), props.refillInterval());
+    synchronized (this) {
+      loadedUntil = LocalDateTime.now();
+      shardGeneration = shardLeaseManager.generation();
+    }
+    // anything already overdue is outside the window, let the sweep handle it right away
+    promoSchedulerService.checkAndUpdatePromoStatuses();
+    timer.schedulePeriodically(this::refill, 0, props.refillInterval().toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    timer.dispose();
+  }
+
+  /**
+   * Queues the transitions of a created or changed promo right away when they fall inside the loaded window,
+   * later ones are picked up by the refill. Past due transitions fire immediately.
+   */
+  public void offer(Promo promo) {
+    if (!Status.ENDABLE.contains(promo.getStatus()) || !shardLeaseManager.owns(promo.getId())) {
+      return;
+    }
+    List<Transition> transitions = new ArrayList<>(2);
+    // an ENABLED promo is already running
+    if (promo.getStartsAt() != null && Status.STARTABLE.contains(promo.getStatus())) {
+      transitions.add(transition(promo, Kind.START));
+    }
+    if (promo.getEndsAt() != null) {
+      transitions.add(transition(promo, Kind.END));
+    }
+    synchronized (this) {
+      if (loadedUntil == null) {
+        return;
+      }
+      for (Transition transition : transitions) {
+        if (!transition.at().isAfter(loadedUntil) && queued.add(transition)) {
+          queue.add(transition);
+        }
+      }
+      arm();
+    }
+  }
+
+  public synchronized int size() {
+    return queue.size();
+  }
+
+  void refill() {
+    if (!refilling.compareAndSet(false, true)) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime to = now.plus(props.lookAhead());
+    LocalDateTime from;
+    long generation = shardLeaseManager.generation();
+    boolean shardsChanged;
+    synchronized (this) {
+      shardsChanged = generation != shardGeneration;
+      shardGeneration = generation;
+      // newly acquired shards have nothing loaded yet, reload the whole window, duplicates are dropped on enqueue
+      from = shardsChanged ? now : loadedUntil;
+    }
+    if (shardsChanged) {
+      promoSchedulerService.checkAndUpdatePromoStatuses();
+    }
+    Optional<Bson> scope = shardLeaseManager.scope();
+    if (scope.isEmpty()) {
+      refilling.set(false);
+      enqueue(List.of(), to);
+      return;
+    }
+
+    Flux.merge(
+            promoDao.findStartsBetween(from, to, scope.get()).map(promo -> transition(promo, Kind.START)),
+            promoDao.findEndsBetween(from, to, scope.get()).map(promo -> transition(promo, Kind.END)))
+        .collectList()
+        .doFinally(signal -> refilling.set(false))
+        .subscribe(
+            transitions -> {
+              enqueue(transitions, to);
+              if (!transitions.isEmpty()) {
+                log.debug("Loaded {} promo transitions up to {}", transitions.size(), to);
+              }
+            },
+            e -> log.error("Failed to load promo transitions: {}", e.getMessage()));
+  }
+
+  private synchronized void enqueue(List<Transition> transitions, LocalDateTime to) {
+    for (Transition transition : transitions) {
+      if (queued.add(transition)) {
+        queue.add(transition);
+      }
+    }
+    loadedUntil = to;
+    arm();
+  }
+
+  private synchronized void arm() {
+    Transition head = queue.peek();
+    if (head == null || head.at().equals(armedFor)) {
+      return;
+    }
+    if (armed != null) {
+      armed.dispose();
+    }
+    long delayNanos = Math.max(0L, Duration.between(LocalDateTime.now(), head.at()).toNanos());
+    armedFor = head.at();
+    armed = timer.schedule(this::fireDue, delayNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void fireDue() {
+    List<Transition> due = new ArrayList<>();
+    synchronized (this) {
+      LocalDateTime now = LocalDateTime.now();
+      while (!queue.isEmpty() && !queue.peek().at().isAfter(now)) {
+        Transition transition = queue.poll();
+        queued.remove(transition);
+        due.add(transition);
+      }
+      armed = null;
+      armedFor = null;
+      arm();
+    }
+
+    List<String> starting = new ArrayList<>();
+    List<String> ending = new ArrayList<>();
+    for (Transition transition : due) {
+      (transition.kind() == Kind.START ? starting : ending).add(transition.promoId());
+    }
+    log.debug("Firing {} starts and {} ends", starting.size(), ending.size());
+
+    // ends after starts, so a promo whose start and end are both due cannot race with itself
+    fire(starting, Kind.START).then(fire(ending, Kind.END)).subscribe();
+  }
+
+  private Mono<Integer> fire(List<String> promoIds, Kind kind) {
+    if (promoIds.isEmpty()) {
+      return Mono.empty();
+    }
+    return (kind == Kind.START ? promoSchedulerService.activateDue(promoIds) : promoSchedulerService.endDue(promoIds))
+        .onErrorResume(e -> {
+          // the safety sweep retries them
+          log.error("Failed to fire {} for {} promos: {}", kind, promoIds.size(), e.getMessage());
+          return Mono.empty();
+        });
+  }
+
+  private static Transition transition(Promo promo, Kind kind) {
+    return new Transition(promo.getId(), kind, kind == Kind.START ? promo.getStartsAt() : promo.getEndsAt());
+  }
+}
@@ -0,0 +1,94 @@
+package com.kas.promoschedulerservice.service;
+
+import com.kas.promoschedulerservice.model.Promo;
+import com.kas.promoschedulerservice.model.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler meters, published through actuator and the Prometheus endpoint.
+ * <ul>
+ *   <li>promo.scheduler.transition.lag: time between startsAt/endsAt and the moment the status change was written</li>
+ *   <li>promo.scheduler.promos.examined / transitioned / conflicts: due promos read, moved, and lost to a
+ *   concurrent update</li>
+ *   <li>promo.scheduler.kafka.send: latency from send to acknowledgement per event, tagged by outcome</li>
+ * </ul>
+ */
+@Component
+public class SchedulerMetrics {
+
+  private final Phase start;
+  private final Phase end;
+  private final Timer kafkaSent;
+  private final Timer kafkaFailed;
+
+  private record Phase(Timer lag, Counter examined, Counter transitioned, Counter conflicts) {}
+
+  public SchedulerMetrics(MeterRegistry meterRegistry) {
+    this.start = phase(meterRegistry, "start");
+    this.end = phase(meterRegistry, "end");
+    this.kafkaSent = kafkaTimer(meterRegistry, "success");
+    this.kafkaFailed = kafkaTimer(meterRegistry, "failure");
+  }
+
+  /**
+   * Records a processed chunk: how many due promos were examined and, for the transitioned ones, how late the
+   * transition was written relative to its scheduled time.
+   */
+  public void recordChunk(Status status, int examined, List<Promo> transitioned, LocalDateTime at) {
+    Phase phase = status == Status.ENDED ? end : start;
+    phase.examined().increment(examined);
+    phase.transitioned().increment(transitioned.size());
+    phase.conflicts().increment(examined - transitioned.size());
+    for (Promo promo : transitioned) {
+      LocalDateTime due = status == Status.ENDED ? promo.getEndsAt() : promo.getStartsAt();
+      if (due != null) {
+        // transitions written ahead of time count as on time
+        phase.lag().record(Math.max(0L, Duration.between(due, at).toNanos()), TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  public void recordKafkaSend(long nanos, boolean success) {
+    (success ? kafkaSent : kafkaFailed).record(nanos, TimeUnit.NANOSECONDS);
+  }
+
+  private static Phase phase(MeterRegistry meterRegistry, String name) {
+    Timer lag = Timer.builder("promo.scheduler.transition.lag")
+        .description("Delay between the scheduled and the actual transition time")
+        .tag("phase", name)
+        .publishPercentileHistogram()
+        .serviceLevelObjectives(Duration.ofMillis(100), Duration.ofSeconds(1), Duration.ofSeconds(10),
+            Duration.ofMinutes(1))
+        .minimumExpectedValue(Duration.ofMillis(1))
+        .maximumExpectedValue(Duration.ofMinutes(10))
+        .register(meterRegistry);
+    return new Phase(
+        lag,
+        counter(meterRegistry, "promo.scheduler.promos.examined", "Due promos read by the scheduler", name),
+        counter(meterRegistry, "promo.scheduler.promos.transitioned", "Promos moved to their next status", name),
+        counter(meterRegistry, "promo.scheduler.promos.conflicts", "Promos skipped on a version conflict", name));
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String meter, String description, String phase) {
+    return Counter.builder(meter)
+        .description(description)
+        .tag("phase", phase)
+        .register(meterRegistry);
+  }
+
+  private static Timer kafkaTimer(MeterRegistry meterRegistry, String outcome) {
+    return Timer.builder("promo.scheduler.kafka.send")
+        .description("Time from send to acknowledgement of a promo event")
+        .tag("outcome", outcome)
+        .publishPercentileHistogram()
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,275 @@
+package com.kas.promoschedulerservice.service;
+
+import com.kas.promoschedulerservice.config.SchedulerProps;
+import com.kas.promoschedulerservice.repository.LeaseDao;
+import com.mongodb.client.model.Filters;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.conversions.Bson;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the promo id space into hash ranges and hands them out to scheduler replicas through leases in Mongo.
+ * Promo ids are random UUIDs, so ranges on the leading hex digit of _id carry an even share of promos.
+ * <p>
+ * Every heartbeat a replica renews its membership lease, counts the live members and claims free or expired shards
+ * up to its fair share, releasing any surplus so that a newly started replica can pick it up. A replica that stops
+ * heartbeating loses its shards once their leases expire and the others take them over.
+ */
+@Slf4j
+@Component
+public class ShardLeaseManager {
+
+  private static final String MEMBER_PREFIX = "member:";
+  private static final String SHARD_PREFIX = "shard:";
+  private static final Duration RELEASE_TIMEOUT = Duration.ofSeconds(5);
+
+  private final LeaseDao leaseDao;
+  private final SchedulerProps.Sharding props;
+  private final String replicaId;
+
+  // shard -> local expiry of our lease on it
+  private final Map<Integer, LocalDateTime> owned = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicBoolean beating = new AtomicBoolean(false);
+  private final Scheduler heartbeats = Schedulers.newSingle("shard-leases");
+
+  public ShardLeaseManager(LeaseDao leaseDao, SchedulerProps schedulerProps) {
+    this.leaseDao = leaseDao;
+    this.props = schedulerProps.sharding();
+    this.replicaId = hostName() + "-" + UUID.randomUUID();
+    if (Boolean.TRUE.equals(props.enabled())) {
+      int shards = props.shards();
+      if (shards < 1 || shards > 16 || Integer.bitCount(shards) != 1) {
+        throw new IllegalArgumentException("scheduler.sharding.shards must be one of 1, 2, 4, 8, 16");
+      }
+      if (props.heartbeatInterval().compareTo(props.leaseTtl()) >= 0) {
+        throw new IllegalArgumentException("scheduler.sharding.heartbeat-interval must be shorter than lease-ttl");
+      }
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return;
+    }
+    log.info("Joining scheduler shard leases as {}, {} shards", replicaId, props.shards());
+    heartbeats.schedulePeriodically(this::heartbeat, 0, props.heartbeatInterval().toMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    heartbeats.dispose();
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return;
+    }
+    // hand the shards over right away instead of letting them expire
+    try {
+      Flux.fromIterable(new ArrayList<>(owned.keySet()))
+          .flatMap(shard -> leaseDao.release(SHARD_PREFIX + shard, replicaId))
+          .then(leaseDao.release(MEMBER_PREFIX + replicaId, replicaId))
+          .block(RELEASE_TIMEOUT);
+    } catch (RuntimeException e) {
+      log.warn("Failed to release shard leases: {}", e.getMessage());
+    }
+    owned.clear();
+  }
+
+  /**
+   * Filter restricting promo queries to the shards this replica currently holds, empty when it holds none.
+   */
+  public Optional<Bson> scope() {
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return Optional.of(Filters.empty());
+    }
+    List<Integer> shards = ownedShards();
+    if (shards.isEmpty()) {
+      return Optional.empty();
+    }
+    if (shards.size() == props.shards()) {
+      return Optional.of(Filters.empty());
+    }
+    List<Bson> ranges = new ArrayList<>(shards.size());
+    for (int shard : shards) {
+      ranges.add(range(shard, props.shards()));
+    }
+    return Optional.of(ranges.size() == 1 ? ranges.get(0) : Filters.or(ranges));
+  }
+
+  /**
+   * Whether the promo falls into one of the shards this replica currently holds.
+   */
+  public boolean owns(String promoId) {
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return true;
+    }
+    return ownedShards().contains(shardOf(promoId, props.shards()));
+  }
+
+  /**
+   * The held part of the id space one shard at a time, keyed by a name that does not depend on which replica holds
+   * the shard or what else it holds, for state that has to survive a handover. A single "all" scope when sharding
+   * is off, none when no shard is held.
+   */
+  public Map<String, Bson> shardScopes() {
+    if (!Boolean.TRUE.equals(props.enabled())) {
+      return Map.of("all", Filters.empty());
+    }
+    Map<String, Bson> scopes = new LinkedHashMap<>();
+    for (int shard : ownedShards()) {
+      scopes.put("shard-" + shard + "-of-" + props.shards(), range(shard, props.shards()));
+    }
+    return scopes;
+  }
+
+  /**
+   * Changes whenever the set of held shards changes, so callers can reload state for newly acquired ranges.
+   */
+  public long generation() {
+    return generation.get();
+  }
+
+  private List<Integer> ownedShards() {
+    LocalDateTime now = LocalDateTime.now();
+    List<Integer> shards = new ArrayList<>(owned.size());
+    owned.forEach((shard, expiresAt) -> {
+      if (expiresAt.isAfter(now)) {
+        shards.add(shard);
+      }
+    });
+    shards.sort(null);
+    return shards;
+  }
+
+  void heartbeat() {
+    if (!beating.compareAndSet(false, true)) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plus(props.leaseTtl());
+
+    leaseDao.tryAcquire(MEMBER_PREFIX + replicaId, replicaId, now, expiresAt)
+        .then(leaseDao.countLive(MEMBER_PREFIX, now))
+        .flatMap(members -> {
+          int fairShare = (int) Math.ceil(props.shards() / (double) Math.max(members, 1L));
+          return Flux.fromIterable(claimOrder())
+              .concatMap(shard -> claim(shard, fairShare, now, expiresAt))
+              .then(releaseSurplus(fairShare));
+        })
+        .doFinally(signal -> beating.set(false))
+        .subscribe(
+            v -> { },
+            e -> log.error("Shard lease heartbeat failed: {}", e.getMessage()));
+  }
+
+  /**
+   * Held shards first so they are renewed before anything new is claimed, then the rest starting from an offset
+   * derived from the replica id to keep replicas from contending for the same free shard.
+   */
+  private List<Integer> claimOrder() {
+    List<Integer> order = new ArrayList<>(owned.keySet());
+    order.sort(null);
+    int offset = Math.floorMod(replicaId.hashCode(), props.shards());
+    for (int i = 0; i < props.shards(); i++) {
+      int shard = (offset + i) % props.shards();
+      if (!owned.containsKey(shard)) {
+        order.add(shard);
+      }
+    }
+    return order;
+  }
+
+  private Mono<Void> claim(int shard, int fairShare, LocalDateTime now, LocalDateTime expiresAt) {
+    boolean held = owned.containsKey(shard);
+    if (!held && owned.size() >= fairShare) {
+      return Mono.empty();
+    }
+    return leaseDao.tryAcquire(SHARD_PREFIX + shard, replicaId, now, expiresAt)
+        .doOnNext(acquired -> {
+          if (acquired) {
+            owned.put(shard, expiresAt);
+            if (!held) {
+              log.info("Acquired scheduler shard {}", shard);
+              generation.incrementAndGet();
+            }
+          } else if (held) {
+            log.warn("Lost scheduler shard {}", shard);
+            owned.remove(shard);
+            generation.incrementAndGet();
+          }
+        })
+        .then();
+  }
+
+  private Mono<Void> releaseSurplus(int fairShare) {
+    List<Integer> shards = new ArrayList<>(owned.keySet());
+    if (shards.size() <= fairShare) {
+      return Mono.empty();
+    }
+    shards.sort(null);
+    List<Integer> surplus = shards.subList(fairShare, shards.size());
+    return Flux.fromIterable(new ArrayList<>(surplus))
+        .concatMap(shard -> {
+          owned.remove(shard);
+          generation.incrementAndGet();
+          log.info("Releasing scheduler shard {} to rebalance", shard);
+          return leaseDao.release(SHARD_PREFIX + shard, replicaId);
+        })
+        .then();
+  }
+
+  /**
+   * _id range of the shard on the leading hex digit, the first and last shards are open ended so ids that are
+   * not lowercase UUIDs still belong to exactly one shard.
+   */
+  static Bson range(int shard, int shards) {
+    int width = 16 / shards;
+    List<Bson> bounds = new ArrayList<>(2);
+    if (shard > 0) {
+      bounds.add(Filters.gte("_id", Integer.toHexString(shard * width)));
+    }
+    if (shard < shards - 1) {
+      bounds.add(Filters.lt("_id", Integer.toHexString((shard + 1) * width)));
+    }
+    return bounds.isEmpty() ? Filters.empty() : Filters.and(bounds);
+  }
+
+  static int shardOf(String id, int shards) {
+    int width = 16 / shards;
+    for (int shard = shards - 1; shard > 0; shard--) {
+      if (id.compareTo(Integer.toHexString(shard * width)) >= 0) {
+        return shard;
+      }
+    }
+    return 0;
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      return "scheduler";
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package com.kas.promoschedulerservice.service;
+
+import com.kas.promoschedulerservice.config.KafkaProps;
+import com.kas.promoschedulerservice.config.SchedulerProps;
+import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import com.kas.promoschedulerservice.util.spool.EventSpool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Replays spooled promo events to Kafka in spool order. Each round sends at most drain-batch-size events and only
+ * commits the longest acknowledged prefix, anything after a failure is retried next round, so a round that fails
+ * because Kafka is still down costs one attempt per drain interval.
+ */
+@Slf4j
+@Component
+public class SpoolDrainer {
+
+  private final EventSpool eventSpool;
+  private final KafkaSender<String, PromoEvent> kafkaSender;
+  private final KafkaProps kafkaProps;
+  private final SchedulerProps.Spool props;
+  private final Counter drained;
+
+  private Disposable subscription;
+
+  public SpoolDrainer(EventSpool eventSpool, KafkaSender<String, PromoEvent> kafkaSender, KafkaProps kafkaProps,
+                      SchedulerProps schedulerProps, MeterRegistry meterRegistry) {
+    this.eventSpool = eventSpool;
+    this.kafkaSender = kafkaSender;
+    this.kafkaProps = kafkaProps;
+    this.props = schedulerProps.spool();
+    this.drained = Counter.builder("promo.scheduler.spool.drained")
+        .description("Spooled promo events delivered to Kafka")
+        .register(meterRegistry);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    subscription = Flux.interval(props.drainInterval())
+        .onBackpressureDrop()
+        .concatMap(tick -> drain())
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  private Mono<Void> drain() {
+    if (eventSpool.isEmpty()) {
+      return Mono.empty();
+    }
+    List<EventSpool.Entry> entries = eventSpool.peek(props.drainBatchSize());
+    // record i goes to the event topic and record i + n to the compacted state topic
+    int n = entries.size();
+    Flux<SenderRecord<String, PromoEvent, Integer>> records = Flux.range(0, 2 * n)
+        .map(i -> SenderRecord.create(i < n ? kafkaProps.topics().promo() : kafkaProps.topics().state(), null,
+            System.currentTimeMillis(), entries.get(i % n).key(), entries.get(i % n).event(), i));
+
+    BitSet acknowledged = new BitSet(2 * n);
+    return kafkaSender.send(records)
+        .doOnNext(result -> {
+          if (result.exception() == null) {
+            acknowledged.set(result.correlationMetadata());
+          }
+        })
+        .then()
+        .onErrorResume(e -> {
+          log.warn("Spool replay failed, {} events still spooled: {}", eventSpool.pendingRecords(), e.getMessage());
+          return Mono.empty();
+        })
+        .then(Mono.defer(() -> {
+          int prefix = 0;
+          while (prefix < n && acknowledged.get(prefix) && acknowledged.get(prefix + n)) {
+            prefix++;
+          }
+          if (prefix == 0) {
+            return Mono.empty();
+          }
+          int replayed = prefix;
+          return eventSpool.commitAsync(entries.get(prefix - 1).next())
+              .doOnSuccess(ignored -> {
+                drained.increment(replayed);
+                log.info("Replayed {} spooled promo events, {} left", replayed, eventSpool.pendingRecords());
+              });
+        }));
+  }
+}
@@ -0,0 +1,138 @@
+package com.kas.promoschedulerservice.service;
+
+import com.kas.promoschedulerservice.config.SchedulerProps;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the scheduler tick without overlap and bounds the work inside it.
+ * <p>
+ * A tick submitted while one is running is coalesced into a single rerun after it completes. Work items go through
+ * {@link #dispatch} with bounded concurrency and prefetch. Within a tick, dispatch stops taking new items once the
+ * tick's time budget is spent, the remainder is still due in Mongo and is carried over to an immediate rerun.
+ */
+@Slf4j
+@Component
+public class TickExecutor {
+
+  private record Tick(long deadlineNanos, AtomicBoolean exhausted) {}
+
+  private final SchedulerProps.Tick props;
+
+  private final AtomicBoolean running = new AtomicBoolean(false);
+  private final AtomicBoolean rerun = new AtomicBoolean(false);
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger queued = new AtomicInteger();
+  private final Counter coalesced;
+  private final Counter carriedOver;
+  private final MeterRegistry meterRegistry;
+
+  public TickExecutor(SchedulerProps schedulerProps, MeterRegistry meterRegistry) {
+    this.props = schedulerProps.tick();
+    this.meterRegistry = meterRegistry;
+    Gauge.builder("promo.scheduler.tick.in.flight", inFlight, AtomicInteger::get)
+        .description("Work items of the scheduler currently executing")
+        .register(meterRegistry);
+    Gauge.builder("promo.scheduler.tick.queued", queued, AtomicInteger::get)
+        .description("Work items fetched by the scheduler and waiting for a free slot")
+        .register(meterRegistry);
+    this.coalesced = Counter.builder("promo.scheduler.tick.coalesced")
+        .description("Ticks that arrived while one was running")
+        .register(meterRegistry);
+    this.carriedOver = Counter.builder("promo.scheduler.tick.carried.over")
+        .description("Ticks that ran out of budget and left work for a rerun")
+        .register(meterRegistry);
+  }
+
+  public void submit(Supplier<Mono<?>> tick) {
+    if (!running.compareAndSet(false, true)) {
+      rerun.set(true);
+      coalesced.increment();
+      log.debug("Tick already running, coalescing");
+      return;
+    }
+    rerun.set(false);
+    Tick budget = new Tick(System.nanoTime() + props.budget().toNanos(), new AtomicBoolean(false));
+    Timer.Sample sample = Timer.start(meterRegistry);
+
+    Mono.defer(tick)
+        .contextWrite(Context.of(Tick.class, budget))
+        .doFinally(signal -> {
+          sample.stop(Timer.builder("promo.scheduler.tick.duration")
+              .description("Wall time of a scheduler tick")
+              .tag("outcome", signal == SignalType.ON_ERROR ? "failure" : "success")
+              .register(meterRegistry));
+          if (budget.exhausted().get()) {
+            carriedOver.increment();
+            log.info("Tick budget of {} spent, carrying the remaining work over", props.budget());
+            rerun.set(true);
+          }
+          running.set(false);
+          if (rerun.getAndSet(false)) {
+            submit(tick);
+          }
+        })
+        .subscribe(null, e -> log.error("Tick failed: {}", e.getMessage()));
+  }
+
+  /**
+   * Emits false once the budget of the current tick is spent and marks the tick for carry-over, always true outside
+   * a tick. For sequential work that cannot go through {@link #dispatch}.
+   */
+  public Mono<Boolean> hasBudget() {
+    return Mono.deferContextual(context -> {
+      Tick tick = context.getOrDefault(Tick.class, null);
+      if (tick == null || System.nanoTime() - tick.deadlineNanos() < 0) {
+        return Mono.just(true);
+      }
+      tick.exhausted().set(true);
+      return Mono.just(false);
+    });
+  }
+
+  /**
+   * Runs work for each item with the configured concurrency and prefetch. Inside a submitted tick no new item is
+   * taken once the tick's budget is spent, items already in flight complete.
+   */
+  public <T, R> Flux<R> dispatch(Flux<T> items, Function<T, Mono<R>> work) {
+    return Flux.deferContextual(context -> {
+      Tick tick = context.getOrDefault(Tick.class, null);
+      AtomicInteger waiting = new AtomicInteger();
+      return items
+          .takeWhile(item -> {
+            if (tick == null || System.nanoTime() - tick.deadlineNanos() < 0) {
+              return true;
+            }
+            tick.exhausted().set(true);
+            return false;
+          })
+          .doOnNext(item -> {
+            waiting.incrementAndGet();
+            queued.incrementAndGet();
+          })
+          .flatMap(item -> Mono.defer(() -> {
+                waiting.decrementAndGet();
+                queued.decrementAndGet();
+                inFlight.incrementAndGet();
+                return work.apply(item);
+              })
+              .doFinally(signal -> inFlight.decrementAndGet()),
+              props.concurrency(), props.prefetch())
+          // items dropped on cancel or error never reached a slot
+          .doFinally(signal -> queued.addAndGet(-waiting.getAndSet(0)));
+    });
+  }
+}
@@ -0,0 +1,13 @@
+package com.kas.promoschedulerservice.util.mapper;
+
+import com.kas.promoeventschema.PromoEventData;
+import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import org.mapstruct.Mapper;
+
+@Mapper
+public interface PromoEventDataMapper {
+
+  PromoEventData toData(PromoEvent event);
+  PromoEvent fromData(PromoEventData data);
+
+}
@@ -0,0 +1,35 @@
+package com.kas.promoschedulerservice.util.serializer;
+
+import com.kas.promoeventschema.PromoEventBinaryCodec;
+import com.kas.promoeventschema.PromoEventSchema;
+import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import com.kas.promoschedulerservice.util.mapper.PromoEventDataMapper;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.mapstruct.factory.Mappers;
+
+import java.nio.charset.StandardCharsets;
+
+public class PromoEventBinarySerializer implements Serializer<PromoEvent> {
+    private static final byte[] FORMAT = PromoEventSchema.FORMAT_BINARY.getBytes(StandardCharsets.UTF_8);
+
+    private final PromoEventDataMapper mapper = Mappers.getMapper(PromoEventDataMapper.class);
+
+    @Override
+    public byte[] serialize(String topic, PromoEvent data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return PromoEventBinaryCodec.encode(mapper.toData(data));
+        } catch (Exception e) {
+            throw new RuntimeException("Error serializing PromoEvent", e);
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, PromoEvent data) {
+        headers.add(PromoEventSchema.FORMAT_HEADER, FORMAT);
+        return serialize(topic, data);
+    }
+}
@@ -3,10 +3,16 @@ package com.kas.promoschedulerservice.util.serializer;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kas.promoeventschema.PromoEventSchema;
 import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import org.apache.kafka.common.header.Headers;
 import org.apache.kafka.common.serialization.Serializer;
 
+import java.nio.charset.StandardCharsets;
+
 public class PromoEventSerializer implements Serializer<PromoEvent> {
+    private static final byte[] FORMAT = PromoEventSchema.FORMAT_JSON.getBytes(StandardCharsets.UTF_8);
+
     private final ObjectMapper objectMapper;
 
     public PromoEventSerializer() {
@@ -17,10 +23,19 @@ public class PromoEventSerializer implements Serializer<PromoEvent> {
 
     @Override
     public byte[] serialize(String topic, PromoEvent data) {
+        if (data == null) {
+            return null;
+        }
         try {
             return objectMapper.writeValueAsBytes(data);
         } catch (Exception e) {
             throw new RuntimeException("Error serializing BookEvent", e);
         }
     }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, PromoEvent data) {
+        headers.add(PromoEventSchema.FORMAT_HEADER, FORMAT);
+        return serialize(topic, data);
+    }
 }
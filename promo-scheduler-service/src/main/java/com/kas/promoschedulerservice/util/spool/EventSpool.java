@@ -0,0 +1,347 @@
+package com.kas.promoschedulerservice.util.spool;
+
+import com.kas.promoeventschema.PromoEventBinaryCodec;
+import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import com.kas.promoschedulerservice.util.mapper.PromoEventDataMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.mapstruct.factory.Mappers;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Append-only spool of promo events that could not be sent, kept in memory-mapped segment files so an append is a
+ * copy into the page cache and never waits on disk.
+ * <p>
+ * A record is {@code [int length][long spooledAtMillis][short keyLength][key][binary event]}. The length is written
+ * last and acts as the commit marker, a record torn by a crash reads as the end of the segment. A length of -1 marks
+ * a segment closed early because the next record did not fit. The read position lives in its own small mapped file,
+ * it only moves on {@link #commit} and is forced to disk there, so everything after it is replayed after a restart.
+ * <p>
+ * {@link #appendAll} and {@link #commitAsync} run on the spool's own thread, callers on Kafka send-result threads
+ * never wait for the lock, a segment roll or the position flush.
+ */
+@Slf4j
+public class EventSpool implements AutoCloseable {
+
+    private static final int HEADER = Integer.BYTES + Long.BYTES + Short.BYTES;
+    private static final int SEGMENT_CLOSED = -1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    public record Position(long segment, int offset) {}
+
+    public record Entry(String key, PromoEvent event, long spooledAt, Position next) {}
+
+    private final Path directory;
+    private final int segmentSize;
+    private final PromoEventDataMapper mapper = Mappers.getMapper(PromoEventDataMapper.class);
+    private final Scheduler writer = Schedulers.newSingle("event-spool");
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final TreeSet<Long> segments = new TreeSet<>();
+    private final MappedByteBuffer readPosition;
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private long readSegment;
+    private int readOffset;
+    private MappedByteBuffer readBuffer;
+
+    private long pendingRecords;
+    private long pendingBytes;
+    private volatile long oldestSpooledAt;
+
+    public EventSpool(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                files.map(file -> file.getFileName().toString())
+                        .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                        .map(name -> name.substring(0, name.length() - SEGMENT_SUFFIX.length()))
+                        .forEach(segment -> segments.add(Long.parseLong(segment)));
+            }
+            readPosition = map(directory.resolve("position"), Long.BYTES + Integer.BYTES);
+            readSegment = readPosition.getLong(0);
+            readOffset = readPosition.getInt(Long.BYTES);
+            if (segments.isEmpty()) {
+                segments.add(readSegment);
+            }
+            if (readSegment < segments.first()) {
+                readSegment = segments.first();
+                readOffset = 0;
+            }
+            writeSegment = segments.last();
+            writeBuffer = map(segmentPath(writeSegment), segmentSize);
+            readBuffer = readSegment == writeSegment ? writeBuffer : map(segmentPath(readSegment), segmentSize);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open event spool in " + directory, e);
+        }
+        if (pendingRecords > 0) {
+            log.warn("Event spool in {} holds {} unsent events", directory, pendingRecords);
+        }
+    }
+
+    /**
+     * Queues the events for the spool thread, keyed by promo id, and emits how many were spooled. They count as
+     * pending from this call on, so {@link #isEmpty} cannot let a newer event overtake them.
+     */
+    public Mono<Integer> appendAll(List<PromoEvent> events) {
+        queued.addAndGet(events.size());
+        Sinks.One<Integer> spooled = Sinks.one();
+        writer.schedule(() -> {
+            int appended = 0;
+            try {
+                for (PromoEvent event : events) {
+                    if (append(event.getPayload().getPromoId(), event)) {
+                        appended++;
+                    }
+                }
+                spooled.tryEmitValue(appended);
+            } catch (RuntimeException e) {
+                spooled.tryEmitError(e);
+            } finally {
+                queued.addAndGet(-events.size());
+            }
+        });
+        return spooled.asMono();
+    }
+
+    /**
+     * {@link #commit} on the spool thread.
+     */
+    public Mono<Void> commitAsync(Position next) {
+        return Mono.<Void>fromRunnable(() -> commit(next)).subscribeOn(writer);
+    }
+
+    /**
+     * Appends the event, returns false when it is larger than a segment and cannot be spooled at all.
+     */
+    public synchronized boolean append(String key, PromoEvent event) {
+        byte[] keyBytes = key == null ? new byte[0] : key.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = PromoEventBinaryCodec.encode(mapper.toData(event));
+        int length = HEADER + keyBytes.length + payload.length;
+        if (length > segmentSize - Integer.BYTES) {
+            log.error("Event for {} is {} bytes, too large for the spool, dropping it", key, length);
+            return false;
+        }
+        int offset = writeBuffer.position();
+        if (offset + length + Integer.BYTES > segmentSize) {
+            writeBuffer.putInt(offset, SEGMENT_CLOSED);
+            roll();
+            offset = 0;
+        }
+        long spooledAt = System.currentTimeMillis();
+        writeBuffer.position(offset + Integer.BYTES);
+        writeBuffer.putLong(spooledAt);
+        writeBuffer.putShort((short) keyBytes.length);
+        writeBuffer.put(keyBytes);
+        writeBuffer.put(payload);
+        writeBuffer.putInt(offset, length);
+        if (pendingRecords == 0) {
+            oldestSpooledAt = spooledAt;
+        }
+        pendingRecords++;
+        pendingBytes += length;
+        return true;
+    }
+
+    /**
+     * Up to max entries from the read position on, without consuming them.
+     */
+    public synchronized List<Entry> peek(int max) {
+        List<Entry> entries = new ArrayList<>(Math.min(max, (int) Math.min(pendingRecords, Integer.MAX_VALUE)));
+        long segment = readSegment;
+        int offset = readOffset;
+        MappedByteBuffer buffer = readBuffer;
+        while (entries.size() < max) {
+            int length = offset + Integer.BYTES <= segmentSize ? buffer.getInt(offset) : SEGMENT_CLOSED;
+            if (length == 0 || (length == SEGMENT_CLOSED && segment == writeSegment)) {
+                break;
+            }
+            if (length == SEGMENT_CLOSED) {
+                segment = segments.higher(segment);
+                offset = 0;
+                buffer = segment == writeSegment ? writeBuffer : mapQuietly(segment);
+                continue;
+            }
+            entries.add(read(buffer, offset, length, new Position(segment, offset + length)));
+            offset += length;
+        }
+        return entries;
+    }
+
+    /**
+     * Moves the read position past a sent entry, deletes segments that are fully consumed and forces the position
+     * to disk.
+     */
+    public synchronized void commit(Position next) {
+        long committed = 0;
+        long committedBytes = 0;
+        long segment = readSegment;
+        int offset = readOffset;
+        MappedByteBuffer buffer = readBuffer;
+        // also steps over a closed segment end right at the new position, the read position then points at a record
+        while (segment < next.segment() || offset < next.offset()
+                || (segment != writeSegment && buffer.getInt(offset) == SEGMENT_CLOSED)) {
+            int length = buffer.getInt(offset);
+            if (length == SEGMENT_CLOSED) {
+                long finished = segment;
+                segment = segments.higher(segment);
+                offset = 0;
+                buffer = segment == writeSegment ? writeBuffer : mapQuietly(segment);
+                delete(finished);
+                continue;
+            }
+            committed++;
+            committedBytes += length;
+            offset += length;
+        }
+        readSegment = segment;
+        readOffset = offset;
+        readBuffer = buffer;
+        readPosition.putLong(0, readSegment);
+        readPosition.putInt(Long.BYTES, readOffset);
+        readPosition.force();
+        pendingRecords -= committed;
+        pendingBytes -= committedBytes;
+        oldestSpooledAt = pendingRecords == 0 ? 0L : buffer.getLong(offset + Integer.BYTES);
+    }
+
+    /**
+     * False also while events handed to {@link #appendAll} are still queued.
+     */
+    public synchronized boolean isEmpty() {
+        return queued.get() == 0 && pendingRecords == 0;
+    }
+
+    public synchronized long pendingRecords() {
+        return pendingRecords;
+    }
+
+    public synchronized long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Epoch millis at which the oldest unsent event was spooled, 0 when empty. Kept up to date by append and commit,
+     * so a gauge scrape neither locks nor decodes.
+     */
+    public long oldestSpooledAt() {
+        return oldestSpooledAt;
+    }
+
+    /**
+     * Lets queued appends finish before flushing.
+     */
+    @Override
+    public void close() {
+        writer.disposeGracefully()
+                .timeout(Duration.ofSeconds(10))
+                .onErrorResume(e -> {
+                    log.warn("Event spool writer did not stop in time: {}", e.getMessage());
+                    writer.dispose();
+                    return Mono.empty();
+                })
+                .block();
+        synchronized (this) {
+            writeBuffer.force();
+            readPosition.force();
+        }
+    }
+
+    private Entry read(MappedByteBuffer buffer, int offset, int length, Position next) {
+        long spooledAt = buffer.getLong(offset + Integer.BYTES);
+        int keyLength = buffer.getShort(offset + Integer.BYTES + Long.BYTES);
+        byte[] key = new byte[keyLength];
+        buffer.get(offset + HEADER, key);
+        byte[] payload = new byte[length - HEADER - keyLength];
+        buffer.get(offset + HEADER + keyLength, payload);
+        PromoEvent event = mapper.fromData(PromoEventBinaryCodec.decode(payload));
+        return new Entry(keyLength == 0 ? null : new String(key, StandardCharsets.UTF_8), event, spooledAt, next);
+    }
+
+    /**
+     * Counts what is left from the read position on and finds where the writer continues.
+     */
+    private void recover() throws IOException {
+        long segment = readSegment;
+        int offset = readOffset;
+        MappedByteBuffer buffer = readBuffer;
+        while (true) {
+            int length = offset + Integer.BYTES <= segmentSize ? buffer.getInt(offset) : SEGMENT_CLOSED;
+            if (length == 0 && segment != writeSegment) {
+                // torn record in a segment the writer already left, nothing after it was committed
+                buffer.putInt(offset, SEGMENT_CLOSED);
+                length = SEGMENT_CLOSED;
+            }
+            if (length == SEGMENT_CLOSED && segment != writeSegment) {
+                segment = segments.higher(segment);
+                offset = 0;
+                buffer = segment == writeSegment ? writeBuffer : map(segmentPath(segment), segmentSize);
+                continue;
+            }
+            if (length <= 0) {
+                break;
+            }
+            if (pendingRecords == 0) {
+                oldestSpooledAt = buffer.getLong(offset + Integer.BYTES);
+            }
+            pendingRecords++;
+            pendingBytes += length;
+            offset += length;
+        }
+        writeBuffer.position(offset);
+    }
+
+    private void roll() {
+        writeSegment++;
+        segments.add(writeSegment);
+        writeBuffer = mapQuietly(writeSegment);
+    }
+
+    private void delete(long segment) {
+        segments.remove(segment);
+        try {
+            Files.deleteIfExists(segmentPath(segment));
+        } catch (IOException e) {
+            log.warn("Failed to delete spool segment {}: {}", segment, e.getMessage());
+        }
+    }
+
+    private MappedByteBuffer mapQuietly(long segment) {
+        try {
+            return map(segmentPath(segment), segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map spool segment " + segment, e);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%019d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private static MappedByteBuffer map(Path file, int size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
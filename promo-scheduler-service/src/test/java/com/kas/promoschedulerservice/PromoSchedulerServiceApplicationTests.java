@@ -3,7 +3,7 @@ package com.kas.promoschedulerservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "scheduler.spool.directory=target/test-spool")
 class PromoSchedulerServiceApplicationTests {
 
   @Test
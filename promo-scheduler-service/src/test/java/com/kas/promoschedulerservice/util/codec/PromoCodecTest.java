@@ -0,0 +1,115 @@
+package com.kas.promoschedulerservice.util.codec;
+
+import com.kas.promoschedulerservice.model.Promo;
+import com.kas.promoschedulerservice.model.Status;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.BsonDouble;
+import org.bson.BsonInt32;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonString;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.pojo.PojoCodecProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
+import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
+
+class PromoCodecTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0, 0, 123_000_000);
+
+    private final PromoCodec codec = new PromoCodec();
+
+    @Test
+    void roundTripsEveryField() {
+        Promo promo = fullPromo();
+        promo.setBookIds(Arrays.asList("book-1", null, "книга-3"));
+
+        Promo decoded = decode(codec, encode(codec, promo));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(promo);
+        assertThat(decoded.getBookIds()).containsExactly("book-1", null, "книга-3");
+    }
+
+    @Test
+    void leavesNullFieldsOutOfTheDocument() {
+        Promo promo = new Promo();
+        promo.setId("promo-1");
+        promo.setCreatedAt(null);
+
+        BsonDocument document = encode(codec, promo);
+        Promo decoded = decode(codec, document);
+
+        assertThat(document.keySet()).containsExactly("_id");
+        assertThat(decoded.getId()).isEqualTo("promo-1");
+        assertThat(decoded.getName()).isNull();
+        assertThat(decoded.getDiscountPercent()).isNull();
+        assertThat(decoded.getBookIds()).isNull();
+        assertThat(decoded.getStatus()).isNull();
+        assertThat(decoded.getEndsAt()).isNull();
+        assertThat(decoded.getVersion()).isNull();
+    }
+
+    @Test
+    void readsAndWritesTheDocumentsOfThePojoCodec() {
+        Codec<Promo> pojoCodec = fromRegistries(
+                MongoClientSettings.getDefaultCodecRegistry(),
+                fromProviders(PojoCodecProvider.builder().automatic(true).build())
+        ).get(Promo.class);
+        Promo promo = fullPromo();
+
+        BsonDocument written = encode(pojoCodec, promo);
+
+        assertThat(decode(codec, written)).usingRecursiveComparison().isEqualTo(promo);
+        assertThat(encode(codec, promo)).isEqualTo(written);
+        assertThat(decode(pojoCodec, encode(codec, promo))).usingRecursiveComparison().isEqualTo(promo);
+    }
+
+    @Test
+    void convertsIntegralNumbersOfOtherTypes() {
+        BsonDocument document = new BsonDocument("_id", new BsonString("promo-1"))
+                .append("discountPercent", new BsonDouble(25.0))
+                .append("version", new BsonInt32(7));
+
+        Promo decoded = decode(codec, document);
+
+        assertThat(decoded.getDiscountPercent()).isEqualTo(25);
+        assertThat(decoded.getVersion()).isEqualTo(7L);
+    }
+
+    @Test
+    void rejectsFractionalAndOutOfRangeNumbers() {
+        assertThatThrownBy(() -> decode(codec, new BsonDocument("discountPercent", new BsonDouble(25.5))))
+                .isInstanceOf(BsonInvalidOperationException.class);
+        assertThatThrownBy(() -> decode(codec, new BsonDocument("discountPercent", new BsonDouble(1e10))))
+                .isInstanceOf(BsonInvalidOperationException.class);
+        assertThatThrownBy(() -> decode(codec, new BsonDocument("version", new BsonDouble(Double.NaN))))
+                .isInstanceOf(BsonInvalidOperationException.class);
+    }
+
+    private static Promo fullPromo() {
+        return new Promo("promo-1", "Летняя распродажа", "Up to 30% off", 30, List.of("book-1", "book-2"),
+                Status.ENABLED, NOW.plusDays(1), NOW.plusDays(30), NOW.minusDays(1), NOW, 4L);
+    }
+
+    private static BsonDocument encode(Codec<Promo> codec, Promo promo) {
+        BsonDocument document = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(document), promo, EncoderContext.builder().build());
+        return document;
+    }
+
+    private static Promo decode(Codec<Promo> codec, BsonDocument document) {
+        return codec.decode(new BsonDocumentReader(document), DecoderContext.builder().build());
+    }
+}
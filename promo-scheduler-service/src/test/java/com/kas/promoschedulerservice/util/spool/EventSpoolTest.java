@@ -0,0 +1,165 @@
+package com.kas.promoschedulerservice.util.spool;
+
+import com.kas.promoschedulerservice.dto.event.PromoEvent;
+import com.kas.promoschedulerservice.model.Status;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventSpoolTest {
+
+  private static final int SEGMENT_SIZE = 256;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replaysFromTheCommittedPositionAfterReopening() {
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      append(spool, 0, 3);
+      List<EventSpool.Entry> entries = spool.peek(10);
+      spool.commit(entries.get(0).next());
+    }
+
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      assertThat(spool.pendingRecords()).isEqualTo(2);
+      assertThat(keys(spool.peek(10))).containsExactly("promo-1", "promo-2");
+      assertThat(spool.oldestSpooledAt()).isEqualTo(spool.peek(1).get(0).spooledAt());
+    }
+  }
+
+  @Test
+  void peekDoesNotConsume() {
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      append(spool, 0, 2);
+
+      assertThat(keys(spool.peek(1))).containsExactly("promo-0");
+      assertThat(keys(spool.peek(10))).containsExactly("promo-0", "promo-1");
+      assertThat(spool.peek(1).get(0).event().getPayload().getStatus()).isEqualTo(Status.ENABLED);
+    }
+  }
+
+  @Test
+  void rollsOverSegmentsAndDeletesConsumedOnes() throws IOException {
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      append(spool, 0, 12);
+      assertThat(segmentFiles()).hasSizeGreaterThan(2);
+
+      List<EventSpool.Entry> entries = spool.peek(100);
+      assertThat(keys(entries)).containsExactlyElementsOf(IntStream.range(0, 12).mapToObj(i -> "promo-" + i).toList());
+
+      spool.commit(entries.get(entries.size() - 1).next());
+      assertThat(spool.isEmpty()).isTrue();
+      assertThat(spool.oldestSpooledAt()).isZero();
+      assertThat(segmentFiles()).hasSize(1);
+
+      append(spool, 12, 1);
+      assertThat(keys(spool.peek(10))).containsExactly("promo-12");
+    }
+  }
+
+  @Test
+  void dropsATornRecordAtTheEndOfTheWriteSegment() throws IOException {
+    EventSpool.Position torn;
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      append(spool, 0, 3);
+      torn = spool.peek(10).get(1).next();
+    }
+    // the length is written last, a crash before it leaves a zero length
+    zeroLength(torn);
+
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      assertThat(spool.pendingRecords()).isEqualTo(2);
+      append(spool, 3, 1);
+      assertThat(keys(spool.peek(10))).containsExactly("promo-0", "promo-1", "promo-3");
+    }
+  }
+
+  @Test
+  void skipsATornRecordInASegmentTheWriterLeft() throws IOException {
+    List<String> expected;
+    EventSpool.Position torn;
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      append(spool, 0, 8);
+      List<EventSpool.Entry> entries = spool.peek(100);
+      int last = (int) entries.stream().filter(entry -> entry.next().segment() == 0).count() - 1;
+      // the last record of segment 0 starts where the one before it ends
+      torn = entries.get(last - 1).next();
+      expected = new ArrayList<>(keys(entries));
+      expected.remove(last);
+    }
+    zeroLength(torn);
+
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      assertThat(keys(spool.peek(100))).containsExactlyElementsOf(expected);
+      assertThat(spool.pendingRecords()).isEqualTo(expected.size());
+    }
+  }
+
+  @Test
+  void rejectsAnEventLargerThanASegment() {
+    try (EventSpool spool = new EventSpool(directory, 32)) {
+      assertThat(spool.append("promo-0", event("promo-0"))).isFalse();
+      assertThat(spool.isEmpty()).isTrue();
+    }
+  }
+
+  @Test
+  void appendsAndCommitsOnTheSpoolThread() {
+    try (EventSpool spool = new EventSpool(directory, SEGMENT_SIZE)) {
+      assertThat(spool.appendAll(List.of(event("promo-0"), event("promo-1"))).block()).isEqualTo(2);
+      assertThat(spool.isEmpty()).isFalse();
+      long oldest = spool.oldestSpooledAt();
+      assertThat(oldest).isPositive();
+
+      spool.commitAsync(spool.peek(1).get(0).next()).block();
+      assertThat(keys(spool.peek(10))).containsExactly("promo-1");
+      assertThat(spool.oldestSpooledAt()).isGreaterThanOrEqualTo(oldest);
+    }
+  }
+
+  private static void append(EventSpool spool, int from, int count) {
+    for (int i = from; i < from + count; i++) {
+      assertThat(spool.append("promo-" + i, event("promo-" + i))).isTrue();
+    }
+  }
+
+  private static PromoEvent event(String promoId) {
+    PromoEvent.Payload payload = new PromoEvent.Payload();
+    payload.setPromoId(promoId);
+    payload.setStatus(Status.ENABLED);
+    payload.setVersion(2L);
+    payload.setBaseVersion(1L);
+    return new PromoEvent(promoId, PromoEvent.EventType.PROMO_DELTA, Instant.EPOCH, payload);
+  }
+
+  private static List<String> keys(List<EventSpool.Entry> entries) {
+    return entries.stream().map(EventSpool.Entry::key).toList();
+  }
+
+  private List<Path> segmentFiles() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".seg")).toList();
+    }
+  }
+
+  private void zeroLength(EventSpool.Position position) throws IOException {
+    Path segment = directory.resolve(String.format("%019d.seg", position.segment()));
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(Integer.BYTES), position.offset());
+    }
+  }
+}
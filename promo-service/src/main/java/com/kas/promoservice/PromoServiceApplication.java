@@ -3,9 +3,11 @@ package com.kas.promoservice;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @ConfigurationPropertiesScan("com.kas.promoservice")
 @SpringBootApplication
+@EnableScheduling
 public class PromoServiceApplication {
 
     public static void main(String[] args) {
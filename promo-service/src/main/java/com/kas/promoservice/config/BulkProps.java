@@ -0,0 +1,13 @@
+package com.kas.promoservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "bulk")
+public record BulkProps(
+        Integer maxItems,
+        Integer chunkSize,
+        Boolean ordered
+) {
+}
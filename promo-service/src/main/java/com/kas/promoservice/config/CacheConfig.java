@@ -0,0 +1,35 @@
+package com.kas.promoservice.config;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kas.promoservice.dto.PromoDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    private final CacheProps cacheProps;
+
+    public CacheConfig(CacheProps cacheProps) {
+        this.cacheProps = cacheProps;
+    }
+
+    /**
+     * Async so a load is an entry of its own: invalidating a promo while it is being read drops the pending load,
+     * and a read that started before an update cannot put the old promo back afterwards.
+     */
+    @Bean
+    public AsyncCache<String, PromoDto> promoCache(MeterRegistry meterRegistry) {
+        AsyncCache<String, PromoDto> cache = Caffeine.newBuilder()
+                .maximumSize(cacheProps.promo().maximumSize())
+                .expireAfterWrite(cacheProps.promo().expireAfterWrite())
+                .recordStats()
+                .buildAsync();
+
+        // hit/miss/eviction counters are published as cache.gets, cache.evictions etc. with tag cache=promo
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "promo");
+    }
+}
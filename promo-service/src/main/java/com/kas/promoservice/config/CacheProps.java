@@ -0,0 +1,17 @@
+package com.kas.promoservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import java.time.Duration;
+
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "cache")
+public record CacheProps(
+        Promo promo
+) {
+    public record Promo(
+            Long maximumSize,
+            Duration expireAfterWrite
+    ){}
+}
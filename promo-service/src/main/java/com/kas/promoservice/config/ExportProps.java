@@ -0,0 +1,11 @@
+package com.kas.promoservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "export")
+public record ExportProps(
+        Integer batchSize
+) {
+}
@@ -1,13 +1,16 @@
 package com.kas.promoservice.config;
 
 import com.kas.promoservice.dto.event.PromoEvent;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.kafka.receiver.ReceiverOptions;
 import reactor.kafka.sender.KafkaSender;
 import reactor.kafka.sender.SenderOptions;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -28,6 +31,9 @@ public class KafkaConfig {
         configProps.put(ProducerConfig.RETRIES_CONFIG, kafkaProps.producer().retries());
         configProps.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, kafkaProps.producer().retryBackoffMsConfig());
         configProps.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, kafkaProps.producer().requestTimeoutMsConfig());
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.LINGER_MS_CONFIG, kafkaProps.producer().lingerMs());
+        configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, kafkaProps.producer().batchSize());
         configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, kafkaProps.producer().keySerializerClassConfig());
         configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, kafkaProps.producer().valueSerializerClassConfig());
 //        configProps.put("security.protocol", kafkaProps.securityProtocol());
@@ -37,4 +43,27 @@ public class KafkaConfig {
         SenderOptions<String, PromoEvent> senderOptions = SenderOptions.create(configProps);
         return KafkaSender.create(senderOptions);
     }
+
+    @Bean
+    public KafkaTopicInitializer kafkaTopicInitializer() {
+        return new KafkaTopicInitializer(kafkaProps);
+    }
+
+    /**
+     * The consumer creates its receiver from these options so it can rebuild the active promo index once its
+     * partitions are assigned.
+     */
+    @Bean
+    public ReceiverOptions<String, PromoEvent> receiverOptions() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProps.bootstrapServers());
+        configProps.put(ConsumerConfig.CLIENT_ID_CONFIG, kafkaProps.clientId() + "-consumer");
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaProps.consumer().groupId());
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, kafkaProps.consumer().autoOffsetReset());
+        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, kafkaProps.consumer().keyDeserializerClassConfig());
+        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, kafkaProps.consumer().valueDeserializerClassConfig());
+
+        return ReceiverOptions.<String, PromoEvent>create(configProps)
+                .subscription(List.of(kafkaProps.topics().promo()));
+    }
 }
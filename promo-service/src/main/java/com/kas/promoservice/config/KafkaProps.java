@@ -12,17 +12,36 @@ public record KafkaProps(
 //        String saslJaasConfig,
         String clientId,
         Topics topics,
-        Producer producer
+        StateTopic stateTopic,
+        Producer producer,
+        Consumer consumer
 ) {
     public record Topics(
-            String promo
+            String promo,
+            String state
+    ){}
+    /**
+     * Log-compacted topic holding the latest state of every promo keyed by promo id.
+     */
+    public record StateTopic(
+            Integer partitions,
+            Short replicationFactor,
+            Integer republishBatchSize
     ){}
     public record Producer(
             String acks,
             Integer retries,
             Integer retryBackoffMsConfig,
             Integer requestTimeoutMsConfig,
+            Integer lingerMs,
+            Integer batchSize,
             String keySerializerClassConfig,
             String valueSerializerClassConfig
     ){}
+    public record Consumer(
+            String groupId,
+            String autoOffsetReset,
+            String keyDeserializerClassConfig,
+            String valueDeserializerClassConfig
+    ){}
 }
@@ -0,0 +1,56 @@
+package com.kas.promoservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.errors.TopicExistsException;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the log-compacted promo state topic on startup. An already existing topic is left as is, so its
+ * cleanup policy has to be changed by hand if it was created without compaction.
+ */
+@Slf4j
+public class KafkaTopicInitializer {
+
+    private final KafkaProps kafkaProps;
+
+    public KafkaTopicInitializer(KafkaProps kafkaProps) {
+        this.kafkaProps = kafkaProps;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        KafkaProps.StateTopic stateTopic = kafkaProps.stateTopic();
+        NewTopic topic = new NewTopic(kafkaProps.topics().state(), stateTopic.partitions(),
+                stateTopic.replicationFactor())
+                .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+
+        Mono.using(
+                        () -> AdminClient.create(Map.of(
+                                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, kafkaProps.bootstrapServers(),
+                                AdminClientConfig.CLIENT_ID_CONFIG, kafkaProps.clientId() + "-admin")),
+                        admin -> Mono.fromCompletionStage(
+                                admin.createTopics(List.of(topic)).all().toCompletionStage()),
+                        AdminClient::close)
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(
+                        null,
+                        e -> {
+                            if (e instanceof TopicExistsException || e.getCause() instanceof TopicExistsException) {
+                                log.debug("Kafka topic {} already exists", topic.name());
+                            } else {
+                                log.error("Failed to create Kafka topic {}: {}", topic.name(), e.getMessage());
+                            }
+                        },
+                        () -> log.info("Created compacted Kafka topic {}", topic.name()));
+    }
+}
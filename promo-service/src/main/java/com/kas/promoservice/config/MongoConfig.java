@@ -1,6 +1,9 @@
 package com.kas.promoservice.config;
 
+import com.kas.promoservice.repository.LeaseDao;
+import com.kas.promoservice.repository.OutboxDao;
 import com.kas.promoservice.repository.PromoDao;
+import com.kas.promoservice.util.codec.PromoCodec;
 import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.reactivestreams.client.MongoClient;
@@ -11,6 +14,9 @@ import org.bson.codecs.pojo.PojoCodecProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
+
+import static org.bson.codecs.configuration.CodecRegistries.fromCodecs;
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
 
@@ -28,6 +34,8 @@ public class MongoConfig {
         ConnectionString connectionString = new ConnectionString(mongoProps.server());
 
         CodecRegistry pojoCodecRegistry = fromRegistries(
+                // Promo is decoded for every list page, it gets a hand-written codec ahead of the POJO one
+                fromCodecs(new PromoCodec()),
                 MongoClientSettings.getDefaultCodecRegistry(),
                 fromProviders(PojoCodecProvider.builder().automatic(true).build())
         );
@@ -45,4 +53,19 @@ public class MongoConfig {
     public PromoDao bookDao(MongoClient client) {
         return new PromoDao(client);
     }
+
+    @Bean
+    public OutboxDao outboxDao(MongoClient client) {
+        return new OutboxDao(client);
+    }
+
+    @Bean
+    public LeaseDao leaseDao(MongoClient client) {
+        return new LeaseDao(client);
+    }
+
+    @Bean
+    public MongoIndexRegistry mongoIndexRegistry(PromoDao promoDao, OutboxDao outboxDao, LeaseDao leaseDao) {
+        return new MongoIndexRegistry(List.of(promoDao, outboxDao, leaseDao), mongoProps.indexes().failOnCollectionScan());
+    }
 }
@@ -0,0 +1,107 @@
+package com.kas.promoservice.config;
+
+import com.kas.promoservice.repository.BaseDao;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.MongoCommandException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the indexes declared by the registered DAOs, drops the ones they no longer use and explains their queries,
+ * reporting any query whose winning plan is a collection scan. With fail-on-collection-scan the check runs blocking and aborts startup.
+ */
+@Slf4j
+public class MongoIndexRegistry {
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(5);
+    private static final int INDEX_NOT_FOUND = 27;
+
+    private final List<BaseDao<?>> daos;
+    private final boolean failOnCollectionScan;
+
+    public MongoIndexRegistry(List<BaseDao<?>> daos, boolean failOnCollectionScan) {
+        this.daos = daos;
+        this.failOnCollectionScan = failOnCollectionScan;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        Mono<Void> initialization = Flux.fromIterable(daos)
+                .concatMap(this::ensureIndexes)
+                .thenMany(Flux.fromIterable(daos).concatMap(this::dropObsoleteIndexes))
+                .thenMany(Flux.fromIterable(daos).concatMap(this::verifyQueryPlans))
+                .collectList()
+                .flatMap(collectionScans -> {
+                    if (collectionScans.isEmpty()) {
+                        log.info("All registered queries are index backed");
+                        return Mono.empty();
+                    }
+                    String message = "Queries resolved to a collection scan: " + collectionScans;
+                    if (failOnCollectionScan) {
+                        return Mono.error(new IllegalStateException(message));
+                    }
+                    log.warn(message);
+                    return Mono.empty();
+                });
+
+        if (failOnCollectionScan) {
+            initialization.block(STARTUP_TIMEOUT);
+        } else {
+            initialization.subscribe(null, e -> log.error("Mongo index initialization failed: {}", e.getMessage()));
+        }
+    }
+
+    private Mono<Void> ensureIndexes(BaseDao<?> dao) {
+        if (dao.indexes().isEmpty()) {
+            return Mono.empty();
+        }
+        String collectionName = dao.getCollection().getNamespace().getCollectionName();
+        return Flux.from(dao.getCollection().createIndexes(dao.indexes()))
+                .doOnNext(index -> log.info("Ensured index {} on {}", index, collectionName))
+                .then();
+    }
+
+    private Mono<Void> dropObsoleteIndexes(BaseDao<?> dao) {
+        String collectionName = dao.getCollection().getNamespace().getCollectionName();
+        return Flux.fromIterable(dao.obsoleteIndexes())
+                .concatMap(name -> Mono.from(dao.getCollection().dropIndex(name))
+                        .doOnSuccess(ignored -> log.info("Dropped obsolete index {} on {}", name, collectionName))
+                        // already gone, dropped by another replica or service sharing the collection
+                        .onErrorResume(MongoCommandException.class,
+                                e -> e.getErrorCode() == INDEX_NOT_FOUND ? Mono.empty() : Mono.error(e)))
+                .then();
+    }
+
+    private Flux<String> verifyQueryPlans(BaseDao<?> dao) {
+        String collectionName = dao.getCollection().getNamespace().getCollectionName();
+        return Flux.fromIterable(dao.queryPlans().entrySet())
+                .concatMap(plan -> Mono.from(plan.getValue().explain(Document.class, ExplainVerbosity.QUERY_PLANNER))
+                        .filter(explain -> isCollectionScan(explain.get("queryPlanner")))
+                        .map(explain -> collectionName + "." + plan.getKey()));
+    }
+
+    private static boolean isCollectionScan(Object node) {
+        if (node instanceof Document document) {
+            if ("COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            // rejected plans are alternatives the planner discarded
+            return document.entrySet().stream()
+                    .filter(entry -> !entry.getKey().equals("rejectedPlans"))
+                    .map(Map.Entry::getValue)
+                    .anyMatch(MongoIndexRegistry::isCollectionScan);
+        }
+        if (node instanceof List<?> list) {
+            return list.stream().anyMatch(MongoIndexRegistry::isCollectionScan);
+        }
+        return false;
+    }
+}
@@ -0,0 +1,18 @@
+package com.kas.promoservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+import java.time.Duration;
+
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "outbox")
+public record OutboxProps(
+        Relay relay
+) {
+    public record Relay(
+            Integer batchSize,
+            Long pollIntervalMs,
+            Duration leaseTtl
+    ){}
+}
@@ -0,0 +1,12 @@
+package com.kas.promoservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+
+@EnableConfigurationProperties
+@ConfigurationProperties(prefix = "search")
+public record SearchProps(
+        Integer maxPageSize,
+        Integer estimatedCountLimit
+) {
+}
@@ -1,57 +1,211 @@
 package com.kas.promoservice.controller;
 
+import com.kas.promoservice.dto.BestDiscountDto;
+import com.kas.promoservice.dto.BulkItemResultDto;
+import com.kas.promoservice.dto.ImportProgressDto;
 import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.dto.PromoPageDto;
+import com.kas.promoservice.dto.PromoSummaryDto;
+import com.kas.promoservice.exception.InvalidSearchException;
+import com.kas.promoservice.exception.PromoVersionConflictException;
+import com.kas.promoservice.model.Status;
+import com.kas.promoservice.repository.PromoSearch;
+import com.kas.promoservice.service.PromoExportService;
 import com.kas.promoservice.service.PromoService;
+import com.kas.promoservice.service.PromoStateService;
+import com.kas.promoservice.util.http.ETags;
+import com.kas.promoservice.util.imports.PromoImportReader;
+import com.kas.promoservice.util.projection.PromoFields;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.Set;
+
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("api/v1/promotions")
 public class PromoController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    public static final String TOTAL_COUNT_EXACT_HEADER = "X-Total-Count-Exact";
+
     private final PromoService promoService;
+    private final PromoStateService promoStateService;
+    private final PromoExportService promoExportService;
 
     @Operation(summary = "Получить список промо-акций",
-            description = "Возвращает список промо-акций",
+            description = "Возвращает список промо-акций. С параметром cursor используется курсорная пагинация, "
+                    + "курсор следующей страницы возвращается в заголовке X-Next-Cursor. По умолчанию возвращаются "
+                    + "поля краткого представления (id, name, discountPercent, status, startsAt, endsAt, version). "
+                    + "Параметр fields задает через запятую поля ответа, fields=* возвращает промо-акции целиком, "
+                    + "id и version возвращаются всегда",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Все промо-акции",
-                            content = @Content(schema = @Schema(implementation = PromoDto.class)))
+                    @ApiResponse(responseCode = "200", description = "Промо-акции с запрошенными полями",
+                            content = @Content(schema = @Schema(implementation = PromoDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор или неизвестное поле")
             })
     @GetMapping
-    public Flux<PromoDto> getPromos(@RequestParam(defaultValue = "0") int page,
-                                    @RequestParam(defaultValue = "10") int size) {
-        return promoService.getPaginatedPromos(page, size);
+    public Mono<ResponseEntity<Flux<PromoDto>>> getPromos(@RequestParam(defaultValue = "0") int page,
+                                                          @RequestParam(defaultValue = "10") int size,
+                                                          @RequestParam(required = false) String cursor,
+                                                          @RequestParam(required = false) String fields) {
+        Set<String> fieldset = fields == null ? PromoFields.SUMMARY : PromoFields.parse(fields);
+        if (cursor == null) {
+            return Mono.just(ResponseEntity.ok(promoService.getPaginatedPromos(page, size, fieldset)));
+        }
+        return promoService.getPromosAfter(cursor, size, fieldset)
+                .map(PromoController::toPageResponse);
+    }
+
+    @Operation(summary = "Получить краткий список промо-акций",
+            description = "Возвращает промо-акции без описания и списка книг. Пагинация такая же, как у списка "
+                    + "промо-акций",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Краткие данные промо-акций",
+                            content = @Content(schema = @Schema(implementation = PromoSummaryDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Некорректный курсор")
+            })
+    @GetMapping("summaries")
+    public Mono<ResponseEntity<Flux<PromoSummaryDto>>> getPromoSummaries(@RequestParam(defaultValue = "0") int page,
+                                                                         @RequestParam(defaultValue = "10") int size,
+                                                                         @RequestParam(required = false) String cursor) {
+        if (cursor == null) {
+            return Mono.just(ResponseEntity.ok(promoService.getPaginatedSummaries(page, size)));
+        }
+        return promoService.getSummariesAfter(cursor, size)
+                .map(PromoController::toPageResponse);
+    }
+
+    @Operation(summary = "Выгрузить промо-акции",
+            description = "Потоково выгружает промо-акции в формате NDJSON, по одной акции на строку. "
+                    + "Параметры status и updatedSince позволяют выгружать только изменения с прошлой выгрузки. "
+                    + "Ответ сжимается gzip, если клиент передал Accept-Encoding: gzip",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Промо-акции в формате NDJSON")
+            })
+    @GetMapping(value = "export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<DataBuffer> exportPromos(
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince,
+            ServerHttpResponse response) {
+        return promoExportService.export(status, updatedSince, response.bufferFactory());
+    }
+
+    @Operation(summary = "Найти промо-акции",
+            description = "Ищет промо-акции по статусу или книге. Дополнительно можно отфильтровать по пересечению "
+                    + "с интервалом from-to и по диапазону скидки. Сортировка по startsAt, endsAt или "
+                    + "discountPercent, курсор следующей страницы возвращается в заголовке X-Next-Cursor. "
+                    + "С count=exact или count=estimated количество найденных акций возвращается в заголовке "
+                    + "X-Total-Count, оценка ограничена сверху и отмечается заголовком X-Total-Count-Exact: false",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Найденные промо-акции",
+                            content = @Content(schema = @Schema(implementation = PromoDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Комбинация фильтров не поддерживается "
+                            + "индексами, некорректный курсор или неизвестное поле")
+            })
+    @GetMapping("search")
+    public Mono<ResponseEntity<Flux<PromoDto>>> searchPromos(
+            @RequestParam(required = false) Status status,
+            @RequestParam(required = false) String bookId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Integer minDiscount,
+            @RequestParam(required = false) Integer maxDiscount,
+            @RequestParam(defaultValue = "startsAt") String sort,
+            @RequestParam(defaultValue = "false") boolean descending,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String count,
+            @RequestParam(required = false) String fields) {
+        PromoSearch search = new PromoSearch(status, bookId, from, to, minDiscount, maxDiscount,
+                PromoSearch.Sort.fromField(sort), descending);
+        return promoService.searchPromos(search, cursor, size, toSearchCount(count), PromoFields.parse(fields))
+                .map(result -> {
+                    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+                    if (result.nextCursor() != null) {
+                        response.header(NEXT_CURSOR_HEADER, result.nextCursor());
+                    }
+                    if (result.total() != null) {
+                        response.header(TOTAL_COUNT_HEADER, result.total().toString());
+                        response.header(TOTAL_COUNT_EXACT_HEADER, result.totalExact().toString());
+                    }
+                    return response.body(Flux.fromIterable(result.items()));
+                });
     }
 
     @Operation(summary = "Получить промо-акцию по id",
-            description = "Возвращает промо-акцию по id",
+            description = "Возвращает промо-акцию по id. Версия возвращается в ETag, при совпадении If-None-Match "
+                    + "возвращается 304 без тела, промо-акция при этом не загружается целиком. Параметр fields задает "
+                    + "через запятую поля ответа, для такого ответа ETag слабый (W/)",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Детали промо-акции",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = PromoDto.class))),
+                    @ApiResponse(responseCode = "304", description = "Промо-акция не изменилась"),
                     @ApiResponse(responseCode = "404", description = "Промо-акция не найдена",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = PromoDto.class)))
             })
     @GetMapping("{id}")
-    public Mono<PromoDto> getPromoById(@PathVariable String id) {
-        return promoService.getPromoById(id);
+    public Mono<ResponseEntity<PromoDto>> getPromoById(@PathVariable String id,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                       String ifNoneMatch,
+                                                       @RequestParam(required = false) String fields) {
+        Set<String> fieldset = PromoFields.parse(fields);
+        Mono<ResponseEntity<PromoDto>> load = promoService.getPromoById(id, fieldset)
+                .map(promo -> ResponseEntity.ok().eTag(eTag(promo.version(), fieldset)).body(promo));
+        if (ifNoneMatch == null) {
+            return load;
+        }
+        // a revalidation only needs the version, the promo is loaded and mapped when it has changed
+        return promoService.getPromoVersion(id)
+                .flatMap(version -> ETags.matches(ifNoneMatch, version)
+                        ? Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version, fieldset)).<PromoDto>build())
+                        : load);
+    }
+
+    @Operation(summary = "Получить лучшую скидку для книги",
+            description = "Возвращает действующую промо-акцию с максимальной скидкой для книги",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Лучшая скидка",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BestDiscountDto.class))),
+                    @ApiResponse(responseCode = "404", description = "Нет действующих промо-акций для книги",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BestDiscountDto.class)))
+            })
+    @GetMapping("books/{bookId}/best")
+    public Mono<BestDiscountDto> getBestDiscountForBook(@PathVariable String bookId) {
+        return promoService.getBestDiscountForBook(bookId);
     }
 
     @Operation(summary = "Создать промо-акцию",
@@ -66,19 +220,91 @@ public class PromoController {
         return promoService.savePromo(promoDto);
     }
 
+    @Operation(summary = "Массово создать или обновить промо-акции",
+            description = "Каждая промо-акция валидируется отдельно. Акции без id создаются, с id - создаются "
+                    + "или обновляются. Возвращает результат по каждой позиции",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Результаты по позициям",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BulkItemResultDto.class))),
+                    @ApiResponse(responseCode = "413", description = "Слишком много промо-акций в запросе")
+            })
+    @PostMapping("bulk")
+    public Flux<BulkItemResultDto> bulkUpsertPromos(@RequestBody Flux<PromoDto> promoDtos,
+                                                    @RequestParam(required = false) Boolean ordered) {
+        return promoService.bulkUpsertPromos(promoDtos, ordered);
+    }
+
+    @Operation(summary = "Импортировать промо-акции из файла",
+            description = "Потоково читает файл CSV (text/csv, с заголовком из полей PromoDto, bookIds через ';') "
+                    + "или NDJSON (application/x-ndjson) из тела запроса или из части file multipart-запроса. "
+                    + "Строки валидируются как отдельные промо-акции и записываются пачками. В ответ по мере записи "
+                    + "выдается прогресс в формате NDJSON с ошибками по номерам строк, последняя запись имеет done",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Прогресс импорта",
+                            content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE,
+                                    schema = @Schema(implementation = ImportProgressDto.class))),
+                    @ApiResponse(responseCode = "400", description = "Неподдерживаемый формат или неизвестная колонка CSV")
+            })
+    @PostMapping(value = "import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportProgressDto> importPromos(ServerHttpRequest request) {
+        PromoImportReader.Format format = PromoImportReader.Format.of(request.getHeaders().getContentType(), null);
+        return promoService.importPromos(request.getBody(), format);
+    }
+
+    @PostMapping(value = "import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportProgressDto> importPromoFile(@RequestBody Flux<PartEvent> parts) {
+        // parts arrive one after another, each window is one part and only the file part is read
+        return parts.windowUntil(PartEvent::isLast)
+                .concatMap(part -> part.switchOnFirst((first, events) -> {
+                    if (first.get() instanceof FilePartEvent file && file.name().equals("file")) {
+                        PromoImportReader.Format format = PromoImportReader.Format.of(
+                                file.headers().getContentType(), file.filename());
+                        return promoService.importPromos(events.map(PartEvent::content), format);
+                    }
+                    return events.doOnNext(event -> DataBufferUtils.release(event.content()))
+                            .thenMany(Flux.<ImportProgressDto>empty());
+                }));
+    }
+
+    @Operation(summary = "Переопубликовать состояние всех промо-акций",
+            description = "Запускает фоновую выгрузку всех промо-акций в компактируемый топик состояния",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Выгрузка запущена"),
+                    @ApiResponse(responseCode = "409", description = "Выгрузка уже выполняется")
+            })
+    @PostMapping("state/republish")
+    public Mono<ResponseEntity<Void>> republishPromoState() {
+        return Mono.fromSupplier(promoStateService::republishAll)
+                .map(started -> ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).<Void>build());
+    }
+
     @Operation(summary = "Обновить промо-акцию",
-            description = "Обновляет промо-акцию в базе данных",
+            description = "Обновляет промо-акцию в базе данных. С заголовком If-Match обновление выполняется, "
+                    + "только если версия совпадает, слабый ETag (W/) в If-Match не подходит",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Детали промо-акции",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = PromoDto.class))),
+                    @ApiResponse(responseCode = "412", description = "Версия промо-акции изменилась"),
                     @ApiResponse(responseCode = "404", description = "Промо-акция не найдена",
                             content = @Content(mediaType = "application/json",
                                     schema = @Schema(implementation = PromoDto.class)))
             })
     @PutMapping("{id}")
-    public Mono<PromoDto> updatePromo(@Valid @RequestBody PromoDto promoDto, @PathVariable String id) {
-        return promoService.updatePromo(promoDto, id);
+    public Mono<ResponseEntity<PromoDto>> updatePromo(@Valid @RequestBody PromoDto promoDto, @PathVariable String id,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                      String ifMatch) {
+        Long expectedVersion;
+        try {
+            expectedVersion = ETags.toStrongVersion(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new PromoVersionConflictException("If-Match " + ifMatch + " does not match promo " + id));
+        }
+        return promoService.updatePromo(promoDto, id, expectedVersion)
+                .map(promo -> ResponseEntity.ok().eTag(ETags.of(promo.version())).body(promo));
     }
 
     @Operation(summary = "Удалить промо-акцию",
@@ -95,4 +321,27 @@ public class PromoController {
     public Mono<Void> deletePromo(@PathVariable String id) {
         return promoService.deletePromo(id);
     }
+
+    /**
+     * Sparse fieldsets of the same version differ byte-wise, so only the full representation gets a strong tag.
+     */
+    private static String eTag(Long version, Set<String> fieldset) {
+        return fieldset == null ? ETags.of(version) : ETags.weak(version);
+    }
+
+    private static PromoService.SearchCount toSearchCount(String count) {
+        try {
+            return PromoService.SearchCount.valueOf(count.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSearchException("Unsupported count " + count + ", use none, exact or estimated");
+        }
+    }
+
+    private static <T> ResponseEntity<Flux<T>> toPageResponse(PromoPageDto<T> promoPage) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (promoPage.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, promoPage.nextCursor());
+        }
+        return response.body(Flux.fromIterable(promoPage.items()));
+    }
 }
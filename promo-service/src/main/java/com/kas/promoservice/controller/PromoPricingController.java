@@ -0,0 +1,50 @@
+package com.kas.promoservice.controller;
+
+import com.kas.promoservice.dto.BookDiscountDto;
+import com.kas.promoservice.dto.CartItemDto;
+import com.kas.promoservice.dto.CartPricingRequestDto;
+import com.kas.promoservice.service.PromoPricingService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/promotions/books/discounts")
+public class PromoPricingController {
+
+    private final PromoPricingService promoPricingService;
+
+    @Operation(summary = "Рассчитать скидки для корзины",
+            description = "Возвращает действующую скидку для каждой книги из корзины",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Скидки по книгам",
+                            content = @Content(mediaType = "application/json",
+                                    schema = @Schema(implementation = BookDiscountDto.class)))
+            })
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Flux<BookDiscountDto> priceCart(@Valid @RequestBody CartPricingRequestDto request) {
+        return promoPricingService.priceCart(request.items());
+    }
+
+    @Operation(summary = "Рассчитать скидки для потока книг",
+            description = "Принимает и возвращает NDJSON, книги обрабатываются порциями",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Скидки по книгам",
+                            content = @Content(mediaType = "application/x-ndjson",
+                                    schema = @Schema(implementation = BookDiscountDto.class)))
+            })
+    @PostMapping(consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookDiscountDto> priceCartStream(@Valid @RequestBody Flux<CartItemDto> items) {
+        return promoPricingService.priceCart(items);
+    }
+}
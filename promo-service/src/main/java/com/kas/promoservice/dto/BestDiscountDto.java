@@ -0,0 +1,11 @@
+package com.kas.promoservice.dto;
+
+import java.time.LocalDateTime;
+
+public record BestDiscountDto(
+        String bookId,
+        String promoId,
+        Integer discountPercent,
+        LocalDateTime endsAt
+) {
+}
@@ -0,0 +1,12 @@
+package com.kas.promoservice.dto;
+
+import java.math.BigDecimal;
+
+public record BookDiscountDto(
+        String bookId,
+        String promoId,
+        Integer discountPercent,
+        BigDecimal price,
+        BigDecimal discountedPrice
+) {
+}
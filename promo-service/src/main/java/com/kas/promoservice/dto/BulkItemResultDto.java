@@ -0,0 +1,15 @@
+package com.kas.promoservice.dto;
+
+public record BulkItemResultDto(
+        int index,
+        String id,
+        Result result,
+        String error
+) {
+    public enum Result {
+        CREATED,
+        UPDATED,
+        FAILED,
+        SKIPPED
+    }
+}
@@ -0,0 +1,15 @@
+package com.kas.promoservice.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+
+import java.math.BigDecimal;
+
+public record CartItemDto(
+        @NotBlank(message = "Book id is required")
+        String bookId,
+
+        @DecimalMin(value = "0", message = "Price must not be negative")
+        BigDecimal price
+) {
+}
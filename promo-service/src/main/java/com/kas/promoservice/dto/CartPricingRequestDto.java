@@ -0,0 +1,14 @@
+package com.kas.promoservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record CartPricingRequestDto(
+        @NotNull
+        @Size(min = 1, max = 1000, message = "Cart must contain from 1 to 1000 books")
+        List<@Valid CartItemDto> items
+) {
+}
@@ -0,0 +1,17 @@
+package com.kas.promoservice.dto;
+
+import java.util.List;
+
+/**
+ * Running totals of an import. Errors only hold the failed rows since the previous progress entry, indexed by
+ * their line in the uploaded file.
+ */
+public record ImportProgressDto(
+        long rows,
+        long created,
+        long updated,
+        long failed,
+        List<BulkItemResultDto> errors,
+        boolean done
+) {
+}
@@ -1,12 +1,14 @@
 package com.kas.promoservice.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.kas.promoservice.model.Status;
 import jakarta.validation.constraints.*;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
-
+// fields left out by a sparse fieldset are null and not written
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PromoDto(
         String id,
 
@@ -32,6 +34,7 @@ public record PromoDto(
         LocalDateTime endsAt,
 
         LocalDateTime createdAt,
-        LocalDateTime updatedAt
+        LocalDateTime updatedAt,
+        Long version
 ) {
 }
@@ -0,0 +1,9 @@
+package com.kas.promoservice.dto;
+
+import java.util.List;
+
+public record PromoPageDto<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
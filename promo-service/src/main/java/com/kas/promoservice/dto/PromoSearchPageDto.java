@@ -0,0 +1,15 @@
+package com.kas.promoservice.dto;
+
+import java.util.List;
+
+/**
+ * @param total      matching promos when a count was requested, otherwise null
+ * @param totalExact false when the count stopped at the estimate limit and is a lower bound
+ */
+public record PromoSearchPageDto(
+        List<PromoDto> items,
+        String nextCursor,
+        Long total,
+        Boolean totalExact
+) {
+}
@@ -0,0 +1,19 @@
+package com.kas.promoservice.dto;
+
+import com.kas.promoservice.model.Status;
+
+import java.time.LocalDateTime;
+
+/**
+ * List view of a promo without description and bookIds.
+ */
+public record PromoSummaryDto(
+        String id,
+        String name,
+        Integer discountPercent,
+        Status status,
+        LocalDateTime startsAt,
+        LocalDateTime endsAt,
+        Long version
+) {
+}
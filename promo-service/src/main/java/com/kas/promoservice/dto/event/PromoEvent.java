@@ -1,5 +1,6 @@
 package com.kas.promoservice.dto.event;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.kas.promoservice.model.Status;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -21,6 +22,8 @@ public class PromoEvent {
     private Instant occurredAt;
     private Payload payload;
 
+    // a delta leaves unchanged fields null, they are not written out
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     @Getter
     @Setter
     @AllArgsConstructor
@@ -37,11 +40,19 @@ public class PromoEvent {
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
         private Instant timestamp;
+        private Long version;
+        private Long baseVersion;
+        private List<String> addedBookIds;
+        private List<String> removedBookIds;
     }
 
     public enum EventType {
         PROMO_CREATED,
         PROMO_UPDATED,
-        PROMO_DELETED
+        PROMO_DELETED,
+        /**
+         * Only the changed fields of a PROMO_UPDATED, applicable to a copy at payload.baseVersion.
+         */
+        PROMO_DELTA
     }
 }
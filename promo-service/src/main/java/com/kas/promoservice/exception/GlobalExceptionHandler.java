@@ -36,6 +36,42 @@ public class GlobalExceptionHandler {
         return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND));
     }
 
+    @ExceptionHandler(PromoVersionConflictException.class)
+    public Mono<ResponseEntity<String>> handlePromoVersionConflictException(PromoVersionConflictException ex) {
+        log.warn("PromoVersionConflictException occurred: {}", ex.getMessage());
+        return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.PRECONDITION_FAILED));
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public Mono<ResponseEntity<String>> handleInvalidCursorException(InvalidCursorException ex) {
+        log.warn("InvalidCursorException occurred: {}", ex.getMessage());
+        return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST));
+    }
+
+    @ExceptionHandler(InvalidFieldsException.class)
+    public Mono<ResponseEntity<String>> handleInvalidFieldsException(InvalidFieldsException ex) {
+        log.warn("InvalidFieldsException occurred: {}", ex.getMessage());
+        return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST));
+    }
+
+    @ExceptionHandler(InvalidSearchException.class)
+    public Mono<ResponseEntity<String>> handleInvalidSearchException(InvalidSearchException ex) {
+        log.warn("InvalidSearchException occurred: {}", ex.getMessage());
+        return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST));
+    }
+
+    @ExceptionHandler(InvalidImportException.class)
+    public Mono<ResponseEntity<String>> handleInvalidImportException(InvalidImportException ex) {
+        log.warn("InvalidImportException occurred: {}", ex.getMessage());
+        return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST));
+    }
+
+    @ExceptionHandler(BulkRequestTooLargeException.class)
+    public Mono<ResponseEntity<String>> handleBulkRequestTooLargeException(BulkRequestTooLargeException ex) {
+        log.warn("BulkRequestTooLargeException occurred: {}", ex.getMessage());
+        return Mono.just(new ResponseEntity<>(ex.getMessage(), HttpStatus.PAYLOAD_TOO_LARGE));
+    }
+
     @ExceptionHandler(ServerWebInputException.class)
     public ResponseEntity<Map<String, String>> handleEnumError(ServerWebInputException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -0,0 +1,7 @@
+package com.kas.promoservice.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+  public InvalidFieldsException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,7 @@
+package com.kas.promoservice.exception;
+
+public class InvalidImportException extends RuntimeException {
+  public InvalidImportException(String message) {
+    super(message);
+  }
+}
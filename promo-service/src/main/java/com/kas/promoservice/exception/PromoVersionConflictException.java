@@ -0,0 +1,7 @@
+package com.kas.promoservice.exception;
+
+public class PromoVersionConflictException extends RuntimeException {
+    public PromoVersionConflictException(String message) {
+        super(message);
+    }
+}
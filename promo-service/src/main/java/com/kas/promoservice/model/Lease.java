@@ -0,0 +1,22 @@
+package com.kas.promoservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.bson.codecs.pojo.annotations.BsonId;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class Lease {
+
+    @BsonId
+    private String id;
+    private String owner;
+    private LocalDateTime expiresAt;
+
+}
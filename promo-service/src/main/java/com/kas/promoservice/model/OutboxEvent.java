@@ -0,0 +1,37 @@
+package com.kas.promoservice.model;
+
+import com.kas.promoservice.dto.event.PromoEvent;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.bson.codecs.pojo.annotations.BsonId;
+import org.bson.types.ObjectId;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @BsonId
+    private ObjectId id;
+    private String promoId;
+    // assigned by OutboxDao on insert, events of one promo are relayed in this order
+    private Long sequence;
+    private PromoEvent event;
+    // full snapshot for the state topic when the event itself is a delta
+    private PromoEvent state;
+    private LocalDateTime createdAt;
+
+    public static OutboxEvent of(PromoEvent event) {
+        return of(event, null);
+    }
+
+    public static OutboxEvent of(PromoEvent event, PromoEvent state) {
+        return new OutboxEvent(new ObjectId(), event.getPayload().getPromoId(), null, event, state,
+                LocalDateTime.now());
+    }
+}
@@ -1,8 +1,13 @@
 package com.kas.promoservice.repository;
 
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.reactivestreams.client.FindPublisher;
 import com.mongodb.reactivestreams.client.MongoClient;
 import com.mongodb.reactivestreams.client.MongoCollection;
 
+import java.util.List;
+import java.util.Map;
+
 public abstract class BaseDao<T> {
 
     protected final MongoClient client;
@@ -22,4 +27,25 @@ public abstract class BaseDao<T> {
     public MongoClient getClient() {
         return client;
     }
+
+    /**
+     * Indexes the queries of this DAO rely on, created idempotently at startup.
+     */
+    public List<IndexModel> indexes() {
+        return List.of();
+    }
+
+    /**
+     * Names of indexes this DAO used to declare and that are covered by a current one, dropped at startup.
+     */
+    public List<String> obsoleteIndexes() {
+        return List.of();
+    }
+
+    /**
+     * Representative instances of every query this DAO runs, keyed by name, used to verify query plans.
+     */
+    public Map<String, FindPublisher<T>> queryPlans() {
+        return Map.of();
+    }
 }
@@ -0,0 +1,18 @@
+package com.kas.promoservice.repository;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-chunk result of a bulk write, indexes are positions in the submitted chunk.
+ *
+ * @param created indexes of documents that were inserted or upserted
+ * @param errors  write error message by index
+ * @param attempted number of leading items the server processed, an ordered write stops at the first error
+ */
+public record BulkWriteOutcome(
+        Set<Integer> created,
+        Map<Integer, String> errors,
+        int attempted
+) {
+}
@@ -0,0 +1,55 @@
+package com.kas.promoservice.repository;
+
+import com.kas.promoservice.model.Lease;
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.conversions.Bson;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Time bounded leases, a lease belongs to its owner until expiresAt and can then be taken over by anyone.
+ */
+public class LeaseDao extends BaseDao<Lease> {
+
+    public LeaseDao(MongoClient mongoClient) {
+        super(mongoClient, "promo_db", "promo_leases", Lease.class);
+    }
+
+    /**
+     * Takes or renews the lease. Completes with false when another owner holds an unexpired lease, the upsert
+     * then collides with the existing _id.
+     */
+    public Mono<Boolean> tryAcquire(String id, String owner, LocalDateTime now, LocalDateTime expiresAt) {
+        Bson filter = Filters.and(
+                Filters.eq("_id", id),
+                Filters.or(
+                        Filters.eq("owner", owner),
+                        Filters.lte("expiresAt", now)
+                )
+        );
+        Bson update = Updates.combine(
+                Updates.set("owner", owner),
+                Updates.set("expiresAt", expiresAt)
+        );
+        return Mono.from(collection.updateOne(filter, update, new UpdateOptions().upsert(true)))
+                .thenReturn(true)
+                .onErrorResume(MongoWriteException.class, e -> e.getError().getCategory() == ErrorCategory.DUPLICATE_KEY
+                        ? Mono.just(false)
+                        : Mono.error(e));
+    }
+
+    public Mono<Void> release(String id, String owner) {
+        Bson filter = Filters.and(
+                Filters.eq("_id", id),
+                Filters.eq("owner", owner)
+        );
+        return Mono.from(collection.updateOne(filter, Updates.set("expiresAt", LocalDateTime.now())))
+                .then();
+    }
+}
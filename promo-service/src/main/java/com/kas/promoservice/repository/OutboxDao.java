@@ -0,0 +1,133 @@
+package com.kas.promoservice.repository;
+
+import com.kas.promoservice.model.OutboxEvent;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoClient;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outbox events carry a per-promo sequence taken from promo_outbox_sequences in the same transaction as the
+ * insert. The counter of a promo outlives the promo, so a promo re-created under the same id keeps counting after
+ * its delete instead of restarting at version 0, and the concurrent transactions of one promo conflict on it.
+ */
+public class OutboxDao extends BaseDao<OutboxEvent> {
+
+    private final MongoCollection<Document> sequences;
+
+    public OutboxDao(MongoClient mongoClient) {
+        super(mongoClient, "promo_db", "promo_outbox", OutboxEvent.class);
+        this.sequences = mongoClient
+                .getDatabase("promo_db")
+                .getCollection("promo_outbox_sequences");
+    }
+
+    @Override
+    public List<IndexModel> indexes() {
+        return List.of(
+                new IndexModel(Indexes.ascending("promoId", "sequence"), new IndexOptions().name("promoId_sequence"))
+        );
+    }
+
+    @Override
+    public Map<String, FindPublisher<OutboxEvent>> queryPlans() {
+        return Map.of(
+                "findBatch", batchQuery(10),
+                "findPending", pendingQuery(List.of("0", "1"))
+        );
+    }
+
+    public Mono<OutboxEvent> saveWithSession(OutboxEvent event, ClientSession session) {
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions()
+                .upsert(true)
+                .returnDocument(ReturnDocument.AFTER);
+        return Mono.from(sequences.findOneAndUpdate(session, Filters.eq("_id", event.getPromoId()),
+                        Updates.inc("sequence", 1L), options))
+                .doOnNext(counter -> event.setSequence(counter.getLong("sequence")))
+                .then(Mono.defer(() -> Mono.from(collection.insertOne(session, event))))
+                .then(Mono.just(event));
+    }
+
+    /**
+     * Events of the same promo get consecutive sequences in list order.
+     */
+    public Mono<Void> saveAllWithSession(List<OutboxEvent> events, ClientSession session) {
+        if (events.isEmpty()) {
+            return Mono.empty();
+        }
+        Map<String, Long> counts = new LinkedHashMap<>();
+        events.forEach(event -> counts.merge(event.getPromoId(), 1L, Long::sum));
+        List<WriteModel<Document>> increments = counts.entrySet().stream()
+                .<WriteModel<Document>>map(count -> new UpdateOneModel<>(Filters.eq("_id", count.getKey()),
+                        Updates.inc("sequence", count.getValue()), new UpdateOptions().upsert(true)))
+                .toList();
+        return Mono.from(sequences.bulkWrite(session, increments, new BulkWriteOptions().ordered(false)))
+                .thenMany(Flux.defer(() -> sequences.find(session, Filters.in("_id", counts.keySet()))))
+                .collectMap(counter -> counter.getString("_id"), counter -> counter.getLong("sequence"))
+                .doOnNext(last -> assignSequences(events, counts, last))
+                .then(Mono.defer(() -> Mono.from(collection.insertMany(session, events))))
+                .then();
+    }
+
+    /**
+     * Roughly the oldest events first. ObjectIds of different writers within the same second are not in commit
+     * order, callers order the events of a promo by {@link #findPending}.
+     */
+    public Flux<OutboxEvent> findBatch(int limit) {
+        return Flux.from(batchQuery(limit));
+    }
+
+    /**
+     * Every outbox event of the promos, grouped by promo and in sequence order within it.
+     */
+    public Flux<OutboxEvent> findPending(Collection<String> promoIds) {
+        return Flux.from(pendingQuery(promoIds));
+    }
+
+    public Mono<Long> deleteByIds(List<ObjectId> ids) {
+        return Mono.from(collection.deleteMany(Filters.in("_id", ids)))
+                .map(result -> result.getDeletedCount());
+    }
+
+    private static void assignSequences(List<OutboxEvent> events, Map<String, Long> counts, Map<String, Long> last) {
+        Map<String, Long> next = new HashMap<>();
+        for (OutboxEvent event : events) {
+            String promoId = event.getPromoId();
+            long first = last.get(promoId) - counts.get(promoId) + 1;
+            event.setSequence(next.merge(promoId, first, (current, ignored) -> current + 1));
+        }
+    }
+
+    private FindPublisher<OutboxEvent> pendingQuery(Collection<String> promoIds) {
+        return collection.find(Filters.in("promoId", promoIds))
+                .sort(Sorts.ascending("promoId", "sequence"));
+    }
+
+    private FindPublisher<OutboxEvent> batchQuery(int limit) {
+        return collection.find()
+                .sort(Sorts.ascending("_id"))
+                .limit(limit);
+    }
+}
@@ -1,22 +1,100 @@
 package com.kas.promoservice.repository;
 
+import com.kas.promoservice.exception.PromoVersionConflictException;
 import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteInsert;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.CountOptions;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.UpdateOptions;
 import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
 import com.mongodb.reactivestreams.client.ClientSession;
+import com.mongodb.reactivestreams.client.FindPublisher;
 import com.mongodb.reactivestreams.client.MongoClient;
+import org.bson.Document;
 import org.bson.conversions.Bson;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public class PromoDao extends BaseDao<Promo> {
 
+    private static final LocalDateTime EARLIEST = LocalDateTime.of(1, 1, 1, 0, 0);
+
     public PromoDao(MongoClient mongoClient) {
         super(mongoClient, "promo_db", "promos", Promo.class);
     }
 
+    @Override
+    public List<IndexModel> indexes() {
+        return List.of(
+                new IndexModel(Indexes.ascending("bookIds", "status", "startsAt", "endsAt"),
+                        new IndexOptions().name("bookIds_status_startsAt_endsAt")),
+                // status searches, the trailing _id makes the keyset order an index order
+                new IndexModel(Indexes.ascending("status", "startsAt", "_id"),
+                        new IndexOptions().name("status_startsAt__id")),
+                new IndexModel(Indexes.ascending("status", "endsAt", "_id"),
+                        new IndexOptions().name("status_endsAt__id")),
+                new IndexModel(Indexes.ascending("status", "discountPercent", "_id"),
+                        new IndexOptions().name("status_discountPercent__id")),
+                // incremental exports
+                new IndexModel(Indexes.ascending("updatedAt"), new IndexOptions().name("updatedAt"))
+        );
+    }
+
+    @Override
+    public List<String> obsoleteIndexes() {
+        // prefixes of status_startsAt__id and status_endsAt__id
+        return List.of("status_startsAt", "status_endsAt");
+    }
+
+    @Override
+    public Map<String, FindPublisher<Promo>> queryPlans() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, FindPublisher<Promo>> plans = new LinkedHashMap<>();
+        plans.put("pagination", paginationQuery(0, 10));
+        plans.put("findPageAfter", pageAfterQuery("0", 10));
+        plans.put("findById", collection.find(Filters.eq("_id", "0")));
+        plans.put("findByStatus", byStatusQuery(Status.ENABLED));
+        plans.put("findActiveByBookIds", activeByBookIdsQuery(List.of("0", "1"), now));
+        for (PromoSearch.Sort sort : PromoSearch.Sort.values()) {
+            plans.put("search_status_" + sort.field(), searchQuery(new PromoSearch(Status.ENABLED, null,
+                    now, now.plusDays(1), 10, 50, sort, false), null, null, 10, null));
+        }
+        plans.put("search_bookId", searchQuery(new PromoSearch(null, "0", now, now.plusDays(1), null, null,
+                PromoSearch.Sort.STARTS_AT, true), null, null, 10, null));
+        // an export without filters reads the whole collection by design and is left out
+        plans.put("export_updatedSince", exportQuery(null, now, 1000));
+        return plans;
+    }
+
     public Mono<Promo> save(Promo promo) {
         if (promo.getId() == null) {
             promo.setId(UUID.randomUUID().toString());
@@ -25,6 +103,34 @@ public class PromoDao extends BaseDao<Promo> {
                 .then(Mono.just(promo));
     }
 
+    /**
+     * Promos without an id are inserted with a generated id and version 0, promos with an id are upserted
+     * and their version is incremented. Inside a transaction a write error aborts it, nothing of the chunk is kept.
+     */
+    public Mono<BulkWriteOutcome> bulkUpsertWithSession(List<Promo> promos, boolean ordered, ClientSession session) {
+        List<WriteModel<Promo>> models = new ArrayList<>(promos.size());
+        for (Promo promo : promos) {
+            if (promo.getId() == null) {
+                promo.setId(UUID.randomUUID().toString());
+                promo.setVersion(0L);
+                models.add(new InsertOneModel<>(promo));
+            } else {
+                models.add(new UpdateOneModel<>(
+                        Filters.eq("_id", promo.getId()),
+                        upsertPipeline(promo),
+                        new UpdateOptions().upsert(true)));
+            }
+        }
+        return Mono.from(collection.bulkWrite(session, models, new BulkWriteOptions().ordered(ordered)))
+                .map(result -> toOutcome(result, List.of(), promos.size()))
+                .onErrorResume(MongoBulkWriteException.class, e -> {
+                    int attempted = ordered
+                            ? e.getWriteErrors().stream().mapToInt(BulkWriteError::getIndex).min().orElse(promos.size() - 1) + 1
+                            : promos.size();
+                    return Mono.just(toOutcome(e.getWriteResult(), e.getWriteErrors(), attempted));
+                });
+    }
+
     public Mono<Promo> saveWithSession(Promo promo, ClientSession session) {
         if (promo.getVersion() == null) {
             promo.setVersion(0L);
@@ -37,12 +143,77 @@ public class PromoDao extends BaseDao<Promo> {
     }
 
     public Flux<Promo> pagination(int page, int size) {
-        return Flux.from(collection.find().skip(page).limit(size));
+        return pagination(page, size, null);
+    }
+
+    /**
+     * @param projection fields to read, null for the whole document
+     */
+    public Flux<Promo> pagination(int page, int size, Bson projection) {
+        return Flux.from(paginationQuery(page, size).projection(projection));
+    }
+
+    public Flux<Promo> findPageAfter(String lastId, int limit) {
+        return findPageAfter(lastId, limit, null);
+    }
+
+    public Flux<Promo> findPageAfter(String lastId, int limit, Bson projection) {
+        return Flux.from(pageAfterQuery(lastId, limit).projection(projection));
+    }
+
+    /**
+     * One page of a search in sort order, after the given sort value and id when they are set.
+     *
+     * @param projection fields to read, null for the whole document; it has to include the sort field
+     */
+    public Flux<Promo> search(PromoSearch search, Object afterValue, String afterId, int limit, Bson projection) {
+        return Flux.from(searchQuery(search, afterValue, afterId, limit, projection));
+    }
+
+    /**
+     * Counts the promos matching a search, stopping at limit when it is set.
+     */
+    public Mono<Long> countSearch(PromoSearch search, Integer limit) {
+        CountOptions options = new CountOptions();
+        if (limit != null) {
+            options.limit(limit);
+        }
+        return Mono.from(collection.countDocuments(searchFilter(search), options));
+    }
+
+    /**
+     * Every promo matching the filters from a single cursor, fetched batchSize documents at a time as they are
+     * requested.
+     *
+     * @param status       null for any status
+     * @param updatedSince null for any update time
+     */
+    public Flux<Promo> export(Status status, LocalDateTime updatedSince, int batchSize) {
+        return Flux.from(exportQuery(status, updatedSince, batchSize));
     }
 
     public Mono<Promo> findById(String id) {
+        return findById(id, null);
+    }
+
+    public Mono<Promo> findById(String id, Bson projection) {
         Bson filter = Filters.eq("_id", id);
-        return Mono.from(collection.find(filter));
+        return Mono.from(collection.find(filter).projection(projection));
+    }
+
+    public Flux<Promo> findByStatus(Status status) {
+        return Flux.from(byStatusQuery(status));
+    }
+
+    /**
+     * Active promos for any of the books, with discountPercent and only those of their bookIds that were asked for.
+     */
+    public Flux<Promo> findActiveByBookIds(Collection<String> bookIds, LocalDateTime now) {
+        return Flux.from(activeByBookIdsQuery(bookIds, now));
+    }
+
+    public Flux<Promo> findByIdsWithSession(Collection<String> ids, ClientSession session) {
+        return Flux.from(collection.find(session, Filters.in("_id", ids)));
     }
 
     public Mono<Promo> findByIdWithSession(String id, ClientSession session) {
@@ -50,11 +221,16 @@ public class PromoDao extends BaseDao<Promo> {
         return Mono.from(collection.find(session, filter));
     }
 
-    public Mono<Promo> updateWithSession(String id, long expectedVersion, Promo promo, ClientSession session) {
-        Bson filter = Filters.and(
-                Filters.eq("_id", id),
-                Filters.eq("version", expectedVersion)
-        );
+    /**
+     * @param expectedVersion the version the promo must be at, null to update whatever version it has
+     */
+    public Mono<PromoUpdate> updateWithSession(String id, Long expectedVersion, Promo promo, ClientSession session) {
+        Bson filter = expectedVersion == null
+                ? Filters.eq("_id", id)
+                : Filters.and(
+                        Filters.eq("_id", id),
+                        Filters.eq("version", expectedVersion)
+                );
         Bson updates = Updates.combine(
                 Updates.set("name", promo.getName()),
                 Updates.set("description", promo.getDescription()),
@@ -63,17 +239,28 @@ public class PromoDao extends BaseDao<Promo> {
                 Updates.set("status", promo.getStatus()),
                 Updates.set("startsAt", promo.getStartsAt()),
                 Updates.set("endsAt", promo.getEndsAt()),
-                Updates.set("createdAt", promo.getCreatedAt()),
                 Updates.set("updatedAt", promo.getUpdatedAt()),
-                Updates.set("version", expectedVersion + 1)
+                expectedVersion == null
+                        ? Updates.inc("version", 1L)
+                        : Updates.set("version", expectedVersion + 1)
         );
-        return Mono.from(collection.findOneAndUpdate(session, filter, updates))
-                .flatMap(updatedDoc -> {
-                    if (updatedDoc == null) {
-                        return Mono.error(new IllegalStateException("Optimistic lock failed for promo " + id));
-                    }
-                    return findByIdWithSession(id, session);
+        // the previous document is returned so callers can describe the change, every other field is known
+        FindOneAndUpdateOptions options = new FindOneAndUpdateOptions().returnDocument(ReturnDocument.BEFORE);
+        // empty when the promo does not exist, the existence check only runs on the conflict path
+        Mono<PromoUpdate> update = Mono.from(collection.findOneAndUpdate(session, filter, updates, options))
+                .map(previous -> {
+                    long version = previous.getVersion() == null ? 1L : previous.getVersion() + 1;
+                    return new PromoUpdate(previous, new Promo(id, promo.getName(), promo.getDescription(),
+                            promo.getDiscountPercent(), promo.getBookIds(), promo.getStatus(), promo.getStartsAt(),
+                            promo.getEndsAt(), previous.getCreatedAt(), promo.getUpdatedAt(), version));
                 });
+        if (expectedVersion == null) {
+            return update;
+        }
+        return update.switchIfEmpty(Mono.defer(() -> findByIdWithSession(id, session)
+                .flatMap(current -> Mono.error(new PromoVersionConflictException(
+                        "Promo " + id + " has version " + current.getVersion()
+                                + ", expected " + expectedVersion)))));
     }
 
     public Mono<Boolean> deleteWithSession(String id, ClientSession session) {
@@ -85,4 +272,127 @@ public class PromoDao extends BaseDao<Promo> {
     public Mono<ClientSession> startSession() {
         return Mono.from(client.startSession());
     }
+
+    private FindPublisher<Promo> paginationQuery(int page, int size) {
+        return collection.find().sort(Sorts.ascending("_id")).skip(page).limit(size);
+    }
+
+    private FindPublisher<Promo> pageAfterQuery(String lastId, int limit) {
+        Bson filter = lastId == null ? Filters.empty() : Filters.gt("_id", lastId);
+        return collection.find(filter)
+                .sort(Sorts.ascending("_id"))
+                .limit(limit);
+    }
+
+    private FindPublisher<Promo> searchQuery(PromoSearch search, Object afterValue, String afterId, int limit,
+                                             Bson projection) {
+        String field = search.sort().field();
+        Bson filter = searchFilter(search);
+        if (afterId != null) {
+            // the range on the sort field bounds the index scan, the _id tie-break is checked per document
+            filter = Filters.and(filter, search.descending()
+                    ? Filters.and(Filters.lte(field, afterValue),
+                            Filters.or(Filters.lt(field, afterValue), Filters.lt("_id", afterId)))
+                    : Filters.and(Filters.gte(field, afterValue),
+                            Filters.or(Filters.gt(field, afterValue), Filters.gt("_id", afterId))));
+        }
+        Bson sort = search.descending()
+                ? Sorts.descending(field, "_id")
+                : Sorts.ascending(field, "_id");
+        return collection.find(filter)
+                .projection(projection)
+                .sort(sort)
+                .limit(limit);
+    }
+
+    private static Bson searchFilter(PromoSearch search) {
+        List<Bson> filters = new ArrayList<>();
+        if (search.bookId() != null) {
+            filters.add(Filters.eq("bookIds", search.bookId()));
+        }
+        if (search.status() != null) {
+            filters.add(Filters.eq("status", search.status().name()));
+        }
+        if (search.to() != null) {
+            filters.add(Filters.lt("startsAt", search.to()));
+        }
+        if (search.from() != null) {
+            filters.add(Filters.gt("endsAt", search.from()));
+        }
+        // the lower bounds also leave out promos without the sort field, a cursor always has a value to resume from
+        if (search.minDiscount() != null || search.sort() == PromoSearch.Sort.DISCOUNT_PERCENT) {
+            filters.add(Filters.gte("discountPercent", search.minDiscount() == null ? 0 : search.minDiscount()));
+        }
+        if (search.maxDiscount() != null) {
+            filters.add(Filters.lte("discountPercent", search.maxDiscount()));
+        }
+        if (search.sort() != PromoSearch.Sort.DISCOUNT_PERCENT) {
+            filters.add(Filters.gte(search.sort().field(), EARLIEST));
+        }
+        return Filters.and(filters);
+    }
+
+    private FindPublisher<Promo> exportQuery(Status status, LocalDateTime updatedSince, int batchSize) {
+        List<Bson> filters = new ArrayList<>();
+        if (status != null) {
+            filters.add(Filters.eq("status", status.name()));
+        }
+        if (updatedSince != null) {
+            filters.add(Filters.gte("updatedAt", updatedSince));
+        }
+        return collection.find(filters.isEmpty() ? Filters.empty() : Filters.and(filters))
+                .batchSize(batchSize);
+    }
+
+    private FindPublisher<Promo> byStatusQuery(Status status) {
+        return collection.find(Filters.eq("status", status.name()));
+    }
+
+    private FindPublisher<Promo> activeByBookIdsQuery(Collection<String> bookIds, LocalDateTime now) {
+        Bson filter = Filters.and(
+                Filters.in("bookIds", bookIds),
+                Filters.eq("status", Status.ENABLED.name()),
+                Filters.lte("startsAt", now),
+                Filters.gt("endsAt", now)
+        );
+        // only the requested books come back, not the whole bookIds array of every matching promo
+        return collection.find(filter)
+                .projection(Projections.fields(
+                        Projections.include("discountPercent"),
+                        Projections.computed("bookIds", new Document("$filter", new Document()
+                                .append("input", "$bookIds")
+                                .append("as", "bookId")
+                                .append("cond", new Document("$in", List.of("$$bookId", literal(bookIds))))))));
+    }
+
+    private static List<Bson> upsertPipeline(Promo promo) {
+        // pipeline form keeps createdAt and bumps version in a single statement; user text goes through $literal
+        // so values starting with '$' are not read as field paths
+        return List.of(Aggregates.set(
+                new Field<>("name", literal(promo.getName())),
+                new Field<>("description", literal(promo.getDescription())),
+                new Field<>("discountPercent", promo.getDiscountPercent()),
+                new Field<>("bookIds", literal(promo.getBookIds())),
+                new Field<>("status", promo.getStatus() == null ? null : promo.getStatus().name()),
+                new Field<>("startsAt", promo.getStartsAt()),
+                new Field<>("endsAt", promo.getEndsAt()),
+                new Field<>("createdAt", new Document("$ifNull", List.of("$createdAt", promo.getCreatedAt()))),
+                new Field<>("updatedAt", promo.getUpdatedAt()),
+                new Field<>("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", -1L)), 1L)))
+        ));
+    }
+
+    private static Document literal(Object value) {
+        return new Document("$literal", value);
+    }
+
+    private static BulkWriteOutcome toOutcome(BulkWriteResult result, List<BulkWriteError> writeErrors, int attempted) {
+        Set<Integer> created = new HashSet<>();
+        result.getInserts().stream().map(BulkWriteInsert::getIndex).forEach(created::add);
+        result.getUpserts().stream().map(BulkWriteUpsert::getIndex).forEach(created::add);
+
+        Map<Integer, String> errors = new HashMap<>();
+        writeErrors.forEach(error -> errors.put(error.getIndex(), error.getMessage()));
+        return new BulkWriteOutcome(created, errors, attempted);
+    }
 }
@@ -0,0 +1,69 @@
+package com.kas.promoservice.repository;
+
+import com.kas.promoservice.exception.InvalidSearchException;
+import com.kas.promoservice.model.Status;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Promo search criteria. Every search is anchored on status or bookId, the equality prefix of its index:
+ * <ul>
+ *     <li>status, sorted by startsAt, endsAt or discountPercent: status_{sort}__id, a range on the sort field is an
+ *     index bound and the other filters are applied to the documents the bounds select</li>
+ *     <li>bookId with any other filter and sort: bookIds_status_startsAt_endsAt, a book is part of few promos so
+ *     they are sorted in memory</li>
+ * </ul>
+ * A search without either would scan the whole collection and is rejected.
+ *
+ * @param from promos that end after it
+ * @param to   promos that start before it
+ */
+public record PromoSearch(
+        Status status,
+        String bookId,
+        LocalDateTime from,
+        LocalDateTime to,
+        Integer minDiscount,
+        Integer maxDiscount,
+        Sort sort,
+        boolean descending
+) {
+
+    public enum Sort {
+        STARTS_AT("startsAt"),
+        ENDS_AT("endsAt"),
+        DISCOUNT_PERCENT("discountPercent");
+
+        private final String field;
+
+        Sort(String field) {
+            this.field = field;
+        }
+
+        public String field() {
+            return field;
+        }
+
+        public static Sort fromField(String field) {
+            return Arrays.stream(values())
+                    .filter(sort -> sort.field.equals(field))
+                    .findFirst()
+                    .orElseThrow(() -> new InvalidSearchException("Unsupported sort " + field
+                            + ", promos can be sorted by startsAt, endsAt or discountPercent"));
+        }
+    }
+
+    public void validate() {
+        if (status == null && bookId == null) {
+            throw new InvalidSearchException("A promo search needs a status or a bookId, "
+                    + "other filters alone are not backed by an index");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new InvalidSearchException("from must be before to");
+        }
+        if (minDiscount != null && maxDiscount != null && minDiscount > maxDiscount) {
+            throw new InvalidSearchException("minDiscount must not be greater than maxDiscount");
+        }
+    }
+}
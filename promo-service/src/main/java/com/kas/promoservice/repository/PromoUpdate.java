@@ -0,0 +1,15 @@
+package com.kas.promoservice.repository;
+
+import com.kas.promoservice.model.Promo;
+
+/**
+ * Result of a conditional promo update.
+ *
+ * @param previous the promo as it was before the update
+ * @param updated  the promo as written
+ */
+public record PromoUpdate(
+        Promo previous,
+        Promo updated
+) {
+}
@@ -0,0 +1,354 @@
+package com.kas.promoservice.service;
+
+import com.kas.promoservice.dto.BestDiscountDto;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+import com.kas.promoservice.repository.PromoDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory bookId -> ENABLED promo index. Promo attributes live in parallel primitive arrays addressed by slot,
+ * each book maps to an int[] of slots. Writers are serialized by a StampedLock, lookups use optimistic reads.
+ * PROMO_DELTA events are applied in place when the indexed copy is at their base version, otherwise the promo
+ * is reloaded from Mongo. A promo is never replaced by an older version of itself, neither by a redelivered
+ * event nor by the startup scan racing with the events consumed meanwhile.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ActivePromoIndex {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  // never a base version, a delta for a promo indexed without a version always reloads it
+  private static final long UNKNOWN_VERSION = -1L;
+
+  private final PromoDao promoDao;
+
+  private final StampedLock lock = new StampedLock();
+  private final Map<String, int[]> slotsByBookId = new ConcurrentHashMap<>();
+  private final Map<String, Integer> slotByPromoId = new HashMap<>();
+
+  private String[] promoIds = new String[INITIAL_CAPACITY];
+  private String[][] bookIds = new String[INITIAL_CAPACITY][];
+  private byte[] discounts = new byte[INITIAL_CAPACITY];
+  private long[] startsAt = new long[INITIAL_CAPACITY];
+  private long[] endsAt = new long[INITIAL_CAPACITY];
+  private long[] versions = new long[INITIAL_CAPACITY];
+  private int[] freeSlots = new int[16];
+  private int freeCount;
+  private int highWatermark;
+  // versions of promos removed while the scan runs, so a document it read earlier cannot bring them back
+  private final Map<String, Long> removedVersions = new HashMap<>();
+  private boolean rebuilding;
+
+  /**
+   * Scans the ENABLED promos into the index. Called by the consumer once its offsets are fixed, so every
+   * change after the scan is also delivered as an event.
+   */
+  public void rebuild() {
+    log.info("Building active promo index");
+    setRebuilding(true);
+    promoDao.findByStatus(Status.ENABLED)
+        .doOnNext(this::index)
+        .count()
+        .doFinally(signal -> setRebuilding(false))
+        .subscribe(
+            count -> log.info("Active promo index built with {} promos", count),
+            e -> log.error("Failed to build active promo index: {}", e.getMessage()));
+  }
+
+  private void setRebuilding(boolean value) {
+    long stamp = lock.writeLock();
+    try {
+      rebuilding = value;
+      removedVersions.clear();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public void index(Promo promo) {
+    upsert(promo.getId(), promo.getStatus(), promo.getDiscountPercent(), promo.getBookIds(),
+        promo.getStartsAt(), promo.getEndsAt(), promo.getVersion());
+  }
+
+  public void apply(PromoEvent event) {
+    PromoEvent.Payload payload = event.getPayload();
+    if (payload == null || payload.getPromoId() == null) {
+      return;
+    }
+    if (event.getEventType() == PromoEvent.EventType.PROMO_DELETED) {
+      remove(payload.getPromoId(), null);
+      return;
+    }
+    if (event.getEventType() == PromoEvent.EventType.PROMO_DELTA) {
+      applyDelta(payload);
+      return;
+    }
+    upsert(payload.getPromoId(), payload.getStatus(), payload.getDiscountPercent(), payload.getBookIds(),
+        payload.getStartsAt(), payload.getEndsAt(), payload.getVersion());
+  }
+
+  public Optional<BestDiscountDto> findBest(String bookId, LocalDateTime at) {
+    long now = toEpochSecond(at);
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0L) {
+      try {
+        BestDiscountDto best = scan(bookId, now);
+        if (lock.validate(stamp)) {
+          return Optional.ofNullable(best);
+        }
+      } catch (RuntimeException ignored) {
+        // torn read while a writer was resizing, retried under the read lock
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return Optional.ofNullable(scan(bookId, now));
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return slotByPromoId.size();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private BestDiscountDto scan(String bookId, long now) {
+    int[] slots = slotsByBookId.get(bookId);
+    if (slots == null) {
+      return null;
+    }
+    byte[] discounts = this.discounts;
+    long[] startsAt = this.startsAt;
+    long[] endsAt = this.endsAt;
+
+    int best = -1;
+    for (int slot : slots) {
+      if (startsAt[slot] <= now && now < endsAt[slot] && (best < 0 || discounts[slot] > discounts[best])) {
+        best = slot;
+      }
+    }
+    if (best < 0) {
+      return null;
+    }
+    return new BestDiscountDto(bookId, promoIds[best], (int) discounts[best],
+        LocalDateTime.ofEpochSecond(endsAt[best], 0, ZoneOffset.UTC));
+  }
+
+  private void applyDelta(PromoEvent.Payload delta) {
+    String promoId = delta.getPromoId();
+    if (delta.getStatus() != null && delta.getStatus() != Status.ENABLED) {
+      remove(promoId, delta.getVersion());
+      return;
+    }
+    if (!patch(promoId, delta)) {
+      log.debug("Promo {} is not indexed at version {}, reloading it", promoId, delta.getBaseVersion());
+      promoDao.findById(promoId)
+          .doOnNext(this::index)
+          .switchIfEmpty(Mono.fromRunnable(() -> remove(promoId, null)))
+          .subscribe(null, e -> log.error("Failed to reload promo {}: {}", promoId, e.getMessage()));
+    }
+  }
+
+  /**
+   * @return false when the delta cannot be applied to the indexed copy and the promo has to be reloaded
+   */
+  private boolean patch(String promoId, PromoEvent.Payload delta) {
+    long stamp = lock.writeLock();
+    try {
+      Integer slot = slotByPromoId.get(promoId);
+      if (slot == null) {
+        // the promo was not active, only a move to ENABLED can change that
+        return delta.getStatus() != Status.ENABLED;
+      }
+      if (delta.getBaseVersion() == null || versions[slot] != delta.getBaseVersion()) {
+        return false;
+      }
+      String[] books = patchBooks(bookIds[slot], delta);
+      if (books.length == 0) {
+        removeLocked(promoId, delta.getVersion());
+        return true;
+      }
+      if (books != bookIds[slot]) {
+        unlinkBooks(slot);
+        bookIds[slot] = books;
+        linkBooks(slot);
+      }
+      if (delta.getDiscountPercent() != null) {
+        discounts[slot] = delta.getDiscountPercent().byteValue();
+      }
+      if (delta.getStartsAt() != null) {
+        startsAt[slot] = toEpochSecond(delta.getStartsAt());
+      }
+      if (delta.getEndsAt() != null) {
+        endsAt[slot] = toEpochSecond(delta.getEndsAt());
+      }
+      versions[slot] = delta.getVersion() == null ? delta.getBaseVersion() + 1 : delta.getVersion();
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private static String[] patchBooks(String[] current, PromoEvent.Payload delta) {
+    if (delta.getBookIds() != null) {
+      return delta.getBookIds().stream().distinct().toArray(String[]::new);
+    }
+    if (delta.getAddedBookIds() == null && delta.getRemovedBookIds() == null) {
+      return current;
+    }
+    Set<String> books = new LinkedHashSet<>(Arrays.asList(current));
+    if (delta.getRemovedBookIds() != null) {
+      delta.getRemovedBookIds().forEach(books::remove);
+    }
+    if (delta.getAddedBookIds() != null) {
+      books.addAll(delta.getAddedBookIds());
+    }
+    return books.toArray(String[]::new);
+  }
+
+  private void upsert(String promoId, Status status, Integer discountPercent, List<String> books,
+                      LocalDateTime starts, LocalDateTime ends, Long version) {
+    if (status != Status.ENABLED || discountPercent == null || books == null || books.isEmpty()
+        || starts == null || ends == null) {
+      remove(promoId, version);
+      return;
+    }
+    String[] distinctBooks = books.stream().distinct().toArray(String[]::new);
+
+    long stamp = lock.writeLock();
+    try {
+      Integer existing = slotByPromoId.get(promoId);
+      Long removedAt = rebuilding ? removedVersions.get(promoId) : null;
+      if (isOlder(version, existing != null ? versions[existing] : removedAt == null ? UNKNOWN_VERSION : removedAt)) {
+        log.debug("Ignoring version {} of promo {}, a newer one is indexed", version, promoId);
+        return;
+      }
+      int slot;
+      if (existing != null) {
+        slot = existing;
+        unlinkBooks(slot);
+      } else {
+        slot = allocateSlot();
+        slotByPromoId.put(promoId, slot);
+      }
+      promoIds[slot] = promoId;
+      bookIds[slot] = distinctBooks;
+      discounts[slot] = discountPercent.byteValue();
+      startsAt[slot] = toEpochSecond(starts);
+      endsAt[slot] = toEpochSecond(ends);
+      versions[slot] = version == null ? UNKNOWN_VERSION : version;
+      linkBooks(slot);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * @param version the version that is no longer active, null when the promo is gone whatever its version
+   */
+  private void remove(String promoId, Long version) {
+    long stamp = lock.writeLock();
+    try {
+      removeLocked(promoId, version);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private void removeLocked(String promoId, Long version) {
+    if (rebuilding) {
+      removedVersions.merge(promoId, version == null ? Long.MAX_VALUE : version, Math::max);
+    }
+    Integer existing = slotByPromoId.get(promoId);
+    if (existing == null || isOlder(version, versions[existing])) {
+      return;
+    }
+    int slot = slotByPromoId.remove(promoId);
+    unlinkBooks(slot);
+    promoIds[slot] = null;
+    bookIds[slot] = null;
+    releaseSlot(slot);
+  }
+
+  private static boolean isOlder(Long version, long indexed) {
+    return version != null && indexed != UNKNOWN_VERSION && version < indexed;
+  }
+
+  private void linkBooks(int slot) {
+    for (String bookId : bookIds[slot]) {
+      slotsByBookId.compute(bookId, (key, slots) -> {
+        if (slots == null) {
+          return new int[]{slot};
+        }
+        int[] grown = Arrays.copyOf(slots, slots.length + 1);
+        grown[slots.length] = slot;
+        return grown;
+      });
+    }
+  }
+
+  private void unlinkBooks(int slot) {
+    for (String bookId : bookIds[slot]) {
+      slotsByBookId.computeIfPresent(bookId, (key, slots) -> {
+        int[] shrunk = new int[slots.length];
+        int n = 0;
+        for (int s : slots) {
+          if (s != slot) {
+            shrunk[n++] = s;
+          }
+        }
+        return n == 0 ? null : Arrays.copyOf(shrunk, n);
+      });
+    }
+  }
+
+  private int allocateSlot() {
+    if (freeCount > 0) {
+      return freeSlots[--freeCount];
+    }
+    if (highWatermark == promoIds.length) {
+      int capacity = promoIds.length * 2;
+      promoIds = Arrays.copyOf(promoIds, capacity);
+      bookIds = Arrays.copyOf(bookIds, capacity);
+      discounts = Arrays.copyOf(discounts, capacity);
+      startsAt = Arrays.copyOf(startsAt, capacity);
+      endsAt = Arrays.copyOf(endsAt, capacity);
+      versions = Arrays.copyOf(versions, capacity);
+    }
+    return highWatermark++;
+  }
+
+  private void releaseSlot(int slot) {
+    if (freeCount == freeSlots.length) {
+      freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+    }
+    freeSlots[freeCount++] = slot;
+  }
+
+  private static long toEpochSecond(LocalDateTime dateTime) {
+    return dateTime.toEpochSecond(ZoneOffset.UTC);
+  }
+}
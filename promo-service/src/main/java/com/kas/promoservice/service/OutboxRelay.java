@@ -0,0 +1,171 @@
+package com.kas.promoservice.service;
+
+import com.kas.promoservice.config.KafkaProps;
+import com.kas.promoservice.config.OutboxProps;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.model.OutboxEvent;
+import com.kas.promoservice.repository.LeaseDao;
+import com.kas.promoservice.repository.OutboxDao;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Publishes outbox events to the event and state topics. Only the replica holding the relay lease publishes, and
+ * the events of a promo are always sent in sequence order: a batch picks the promos with the oldest events and
+ * then sends every pending event of those promos. An event is deleted only once it and every earlier event of its
+ * promo are acknowledged, so a failed send is retried before anything after it.
+ */
+@Slf4j
+@Service
+public class OutboxRelay {
+
+  private static final String LEASE_ID = "outbox-relay";
+  private static final int RECORDS_PER_EVENT = 2;
+  private static final Duration RELEASE_TIMEOUT = Duration.ofSeconds(5);
+
+  private final OutboxDao outboxDao;
+  private final LeaseDao leaseDao;
+  private final KafkaSender<String, PromoEvent> kafkaSender;
+  private final KafkaProps kafkaProps;
+  private final OutboxProps outboxProps;
+  private final String replicaId;
+
+  private final AtomicBoolean running = new AtomicBoolean(false);
+
+  public OutboxRelay(OutboxDao outboxDao, LeaseDao leaseDao, KafkaSender<String, PromoEvent> kafkaSender,
+                     KafkaProps kafkaProps, OutboxProps outboxProps) {
+    this.outboxDao = outboxDao;
+    this.leaseDao = leaseDao;
+    this.kafkaSender = kafkaSender;
+    this.kafkaProps = kafkaProps;
+    this.outboxProps = outboxProps;
+    this.replicaId = hostName() + "-" + UUID.randomUUID();
+  }
+
+  @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:500}")
+  public void relay() {
+    if (!running.compareAndSet(false, true)) {
+      return;
+    }
+    relayBatch()
+        // keep draining while full batches are being acknowledged
+        .expand(sent -> sent >= outboxProps.relay().batchSize() ? relayBatch() : Mono.empty())
+        .reduce(0, Integer::sum)
+        .doFinally(signal -> running.set(false))
+        .subscribe(
+            total -> {
+              if (total > 0) {
+                log.debug("Outbox relay published {} promo events", total);
+              }
+            },
+            e -> log.error("Outbox relay failed: {}", e.getMessage()));
+  }
+
+  @PreDestroy
+  public void stop() {
+    // hand the relay over right away instead of letting the lease expire
+    try {
+      leaseDao.release(LEASE_ID, replicaId).block(RELEASE_TIMEOUT);
+    } catch (RuntimeException e) {
+      log.warn("Failed to release the outbox relay lease: {}", e.getMessage());
+    }
+  }
+
+  private Mono<Integer> relayBatch() {
+    LocalDateTime now = LocalDateTime.now();
+    return leaseDao.tryAcquire(LEASE_ID, replicaId, now, now.plus(outboxProps.relay().leaseTtl()))
+        .flatMap(owner -> owner ? pendingBatch() : Mono.just(List.<OutboxEvent>of()))
+        .flatMap(batch -> batch.isEmpty() ? Mono.just(0) : publish(batch));
+  }
+
+  private Mono<List<OutboxEvent>> pendingBatch() {
+    return outboxDao.findBatch(outboxProps.relay().batchSize())
+        .map(OutboxEvent::getPromoId)
+        .collect(Collectors.toCollection(LinkedHashSet::new))
+        .flatMap(promoIds -> promoIds.isEmpty()
+            ? Mono.just(List.<OutboxEvent>of())
+            : outboxDao.findPending(promoIds).collectList());
+  }
+
+  private Mono<Integer> publish(List<OutboxEvent> batch) {
+    // every event goes to the event topic and, as the latest promo state, to the compacted state topic
+    Flux<SenderRecord<String, PromoEvent, ObjectId>> records = Flux.fromIterable(batch)
+        .concatMap(outboxEvent -> Flux.just(
+            SenderRecord.create(kafkaProps.topics().promo(), null, System.currentTimeMillis(),
+                outboxEvent.getPromoId(), outboxEvent.getEvent(), outboxEvent.getId()),
+            SenderRecord.create(kafkaProps.topics().state(), null, System.currentTimeMillis(),
+                outboxEvent.getPromoId(), stateOf(outboxEvent), outboxEvent.getId())));
+
+    Map<ObjectId, Integer> acks = new HashMap<>(batch.size());
+    return kafkaSender.send(records)
+        .doOnNext(result -> {
+          if (result.exception() == null) {
+            acks.merge(result.correlationMetadata(), 1, Integer::sum);
+          }
+        })
+        .then()
+        .onErrorResume(e -> {
+          // unacknowledged events stay in the outbox and are retried on the next poll
+          log.error("Failed to publish outbox batch of {} events: {}", batch.size(), e.getMessage());
+          return Mono.empty();
+        })
+        .then(Mono.defer(() -> {
+          List<ObjectId> done = acknowledgedInOrder(batch, acks);
+          return done.isEmpty() ? Mono.just(0) : outboxDao.deleteByIds(done).thenReturn(done.size());
+        }));
+  }
+
+  /**
+   * Per promo, the acknowledged events up to its first unacknowledged one.
+   */
+  private static List<ObjectId> acknowledgedInOrder(List<OutboxEvent> batch, Map<ObjectId, Integer> acks) {
+    List<ObjectId> done = new ArrayList<>(batch.size());
+    Set<String> blocked = new HashSet<>();
+    for (OutboxEvent outboxEvent : batch) {
+      if (blocked.contains(outboxEvent.getPromoId())) {
+        continue;
+      }
+      if (acks.getOrDefault(outboxEvent.getId(), 0) == RECORDS_PER_EVENT) {
+        done.add(outboxEvent.getId());
+      } else {
+        blocked.add(outboxEvent.getPromoId());
+      }
+    }
+    return done;
+  }
+
+  private static PromoEvent stateOf(OutboxEvent outboxEvent) {
+    return outboxEvent.getState() != null
+        ? outboxEvent.getState()
+        : PromoStateService.stateOf(outboxEvent.getEvent());
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (Exception e) {
+      return "promo-service";
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.kas.promoservice.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.dto.event.PromoEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class PromoEventConsumer {
+
+  private final ReceiverOptions<String, PromoEvent> receiverOptions;
+  private final AsyncCache<String, PromoDto> promoCache;
+  private final ActivePromoIndex activePromoIndex;
+
+  private final AtomicBoolean indexBuilt = new AtomicBoolean(false);
+  private Disposable subscription;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    log.info("Subscribing to promo events");
+    subscription = KafkaReceiver.create(receiverOptions.addAssignListener(this::onAssigned))
+        .receive()
+        .doOnNext(this::handle)
+        .doOnError(e -> log.error("Promo event consumer failed: {}", e.getMessage()))
+        .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1)).maxBackoff(Duration.ofSeconds(30)))
+        .subscribe();
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (subscription != null) {
+      subscription.dispose();
+    }
+  }
+
+  /**
+   * The index is scanned from Mongo only after the starting offsets are fixed, every change committed after the
+   * scan read a promo is then also received as an event. Later reassignments resume from committed offsets.
+   */
+  private void onAssigned(Collection<ReceiverPartition> partitions) {
+    if (indexBuilt.get()) {
+      return;
+    }
+    // with a fresh group the position is only resolved against auto-offset-reset when it is first asked for
+    partitions.forEach(ReceiverPartition::position);
+    if (indexBuilt.compareAndSet(false, true)) {
+      activePromoIndex.rebuild();
+    }
+  }
+
+  private void handle(ReceiverRecord<String, PromoEvent> record) {
+    String promoId = record.key();
+    if (promoId == null && record.value() != null && record.value().getPayload() != null) {
+      promoId = record.value().getPayload().getPromoId();
+    }
+    if (promoId != null) {
+      log.debug("Invalidating cached promo {}", promoId);
+      promoCache.synchronous().invalidate(promoId);
+    }
+    if (record.value() != null) {
+      activePromoIndex.apply(record.value());
+    }
+    record.receiverOffset().acknowledge();
+  }
+}
@@ -0,0 +1,64 @@
+package com.kas.promoservice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kas.promoservice.config.ExportProps;
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.model.Status;
+import com.kas.promoservice.repository.PromoDao;
+import com.kas.promoservice.util.mapper.PromoMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Streams the promo catalogue as newline delimited JSON from a single Mongo cursor.
+ */
+@RequiredArgsConstructor
+@Service
+public class PromoExportService {
+
+  private final PromoDao promoDao;
+  private final PromoMapper promoMapper;
+  private final ObjectMapper objectMapper;
+  private final ExportProps exportProps;
+
+  /**
+   * Each emitted buffer holds one cursor batch of promos, one JSON document per line. Batches are read from Mongo
+   * as the client consumes them.
+   *
+   * @param status       only promos with this status, all promos when null
+   * @param updatedSince only promos updated at or after this time, all promos when null
+   */
+  public Flux<DataBuffer> export(Status status, LocalDateTime updatedSince, DataBufferFactory bufferFactory) {
+    int batchSize = exportProps.batchSize();
+    return promoDao.export(status, updatedSince, batchSize)
+        .map(promoMapper::toDto)
+        .buffer(batchSize)
+        .map(batch -> encode(batch, bufferFactory))
+        // the web server requests many buffers ahead, this keeps a single encoded batch waiting for the socket
+        .limitRate(1);
+  }
+
+  private DataBuffer encode(List<PromoDto> batch, DataBufferFactory bufferFactory) {
+    DataBuffer buffer = bufferFactory.allocateBuffer(256 * batch.size());
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer.asOutputStream())) {
+      for (PromoDto promo : batch) {
+        objectMapper.writeValue(generator, promo);
+        generator.writeRaw('\n');
+      }
+    } catch (IOException e) {
+      DataBufferUtils.release(buffer);
+      throw new UncheckedIOException(e);
+    }
+    return buffer;
+  }
+}
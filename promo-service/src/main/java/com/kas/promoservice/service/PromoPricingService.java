@@ -0,0 +1,84 @@
+package com.kas.promoservice.service;
+
+import com.kas.promoservice.dto.BookDiscountDto;
+import com.kas.promoservice.dto.CartItemDto;
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.repository.PromoDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class PromoPricingService {
+
+  private static final int STREAM_CHUNK_SIZE = 500;
+  private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+  private final PromoDao promoDao;
+
+  public Flux<BookDiscountDto> priceCart(List<CartItemDto> items) {
+    log.debug("Pricing cart with {} books", items.size());
+
+    Set<String> bookIds = new HashSet<>(items.size() * 2);
+    items.forEach(item -> bookIds.add(item.bookId()));
+
+    return promoDao.findActiveByBookIds(bookIds, LocalDateTime.now())
+        .collectList()
+        .flatMapMany(promos -> {
+          Map<String, Promo> bestByBookId = bestPromoByBookId(promos, bookIds);
+          return Flux.fromIterable(items)
+              .map(item -> toBookDiscount(item, bestByBookId.get(item.bookId())));
+        });
+  }
+
+  public Flux<BookDiscountDto> priceCart(Flux<CartItemDto> items) {
+    return items
+        .buffer(STREAM_CHUNK_SIZE)
+        .concatMap(this::priceCart);
+  }
+
+  private Map<String, Promo> bestPromoByBookId(List<Promo> promos, Set<String> bookIds) {
+    Map<String, Promo> best = new HashMap<>();
+    for (Promo promo : promos) {
+      if (promo.getDiscountPercent() == null || promo.getBookIds() == null) {
+        continue;
+      }
+      for (String bookId : promo.getBookIds()) {
+        if (bookIds.contains(bookId)) {
+          best.merge(bookId, promo,
+              (current, candidate) -> candidate.getDiscountPercent() > current.getDiscountPercent() ? candidate : current);
+        }
+      }
+    }
+    return best;
+  }
+
+  private BookDiscountDto toBookDiscount(CartItemDto item, Promo promo) {
+    int discountPercent = promo == null ? 0 : promo.getDiscountPercent();
+    BigDecimal discountedPrice = null;
+    if (item.price() != null) {
+      discountedPrice = item.price()
+          .multiply(BigDecimal.valueOf(100L - discountPercent))
+          .divide(HUNDRED, 2, RoundingMode.HALF_UP);
+    }
+    return new BookDiscountDto(
+        item.bookId(),
+        promo == null ? null : promo.getId(),
+        discountPercent,
+        item.price(),
+        discountedPrice
+    );
+  }
+}
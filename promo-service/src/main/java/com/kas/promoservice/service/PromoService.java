@@ -1,32 +1,82 @@
 package com.kas.promoservice.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.kas.promoservice.config.BulkProps;
+import com.kas.promoservice.config.EventProps;
+import com.kas.promoservice.config.ImportProps;
+import com.kas.promoservice.config.SearchProps;
+import com.kas.promoservice.dto.BestDiscountDto;
+import com.kas.promoservice.dto.BulkItemResultDto;
+import com.kas.promoservice.dto.ImportProgressDto;
 import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.dto.PromoPageDto;
+import com.kas.promoservice.dto.PromoSearchPageDto;
+import com.kas.promoservice.dto.PromoSummaryDto;
 import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.exception.BulkRequestTooLargeException;
 import com.kas.promoservice.exception.PromoNotFoundException;
+import com.kas.promoservice.exception.TransactionFailedException;
+import com.kas.promoservice.model.OutboxEvent;
 import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.repository.BulkWriteOutcome;
+import com.kas.promoservice.repository.OutboxDao;
 import com.kas.promoservice.repository.PromoDao;
+import com.kas.promoservice.repository.PromoSearch;
+import com.kas.promoservice.repository.PromoUpdate;
+import com.kas.promoservice.util.imports.PromoImportReader;
 import com.kas.promoservice.util.mapper.PromoMapper;
-import com.mongodb.client.model.Filters;
+import com.kas.promoservice.util.pagination.PageCursor;
+import com.kas.promoservice.util.pagination.SearchCursor;
+import com.kas.promoservice.util.projection.PromoFields;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.Projections;
+import com.mongodb.reactivestreams.client.ClientSession;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.bson.conversions.Bson;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
-import reactor.kafka.sender.KafkaSender;
-import reactor.kafka.sender.SenderRecord;
+import reactor.util.retry.Retry;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class PromoService {
 
+  private static final Bson VERSION_PROJECTION = Projections.include("version");
+
   private final PromoDao promoDao;
   private final PromoMapper promoMapper;
-  private final KafkaSender<String, PromoEvent> kafkaSender;
+  private final OutboxDao outboxDao;
+  private final AsyncCache<String, PromoDto> promoCache;
+  private final ActivePromoIndex activePromoIndex;
+  private final Validator validator;
+  private final BulkProps bulkProps;
+  private final EventProps eventProps;
+  private final SearchProps searchProps;
+  private final ImportProps importProps;
+  private final ObjectMapper objectMapper;
 
   public Mono<PromoDto> savePromo(PromoDto promoDto) {
     log.info("Save promo: {}", promoDto);
@@ -35,74 +85,484 @@ public class PromoService {
     if (entity.getId() == null) {
       entity.setId(UUID.randomUUID().toString());
     }
-    if (entity.getVersion() == null) {
-      entity.setVersion(0L);
-    }
+    entity.setVersion(0L);
     entity.setCreatedAt(LocalDateTime.now());
     entity.setUpdatedAt(LocalDateTime.now());
 
-    return promoDao.save(entity)
-        .doOnSuccess(saved -> sendKafkaEvent(entity, PromoEvent.EventType.PROMO_CREATED))
+    return inTransaction(session -> promoDao.saveWithSession(entity, session)
+        .flatMap(saved -> outboxDao.saveWithSession(
+            OutboxEvent.of(buildPromoEvent(saved, PromoEvent.EventType.PROMO_CREATED)), session)
+            .thenReturn(saved)))
+        .doOnSuccess(saved -> promoCache.synchronous().invalidate(entity.getId()))
         .map(promoMapper::toDto);
   }
 
-  public Mono<PromoDto> updatePromo(PromoDto promoDto, String id) {
-    log.info("Update promo with id: {}", id);
+  /**
+   * A single findOneAndUpdate, conditional on the expected version when there is one.
+   */
+  public Mono<PromoDto> updatePromo(PromoDto promoDto, String id, Long expectedVersion) {
+    log.info("Update promo with id: {}, expected version: {}", id, expectedVersion);
+
+    Promo updated = promoMapper.toEntity(promoDto);
+    updated.setId(id);
+    updated.setUpdatedAt(LocalDateTime.now());
 
-    return promoDao.findById(id)
+    return inTransaction(session -> promoDao.updateWithSession(id, expectedVersion, updated, session)
         .switchIfEmpty(Mono.error(new PromoNotFoundException("Promo not found with id " + id)))
-        .flatMap(existing -> {
-          Promo updated = promoMapper.toEntity(promoDto);
-          updated.setId(id);
-          updated.setCreatedAt(existing.getCreatedAt());
-          updated.setUpdatedAt(LocalDateTime.now());
-          updated.setVersion(existing.getVersion() + 1);
-
-          // Just reuse save for simplicity (no explicit optimistic lock here)
-          return promoDao.save(updated)
-              .doOnSuccess(saved -> sendKafkaEvent(saved, PromoEvent.EventType.PROMO_UPDATED))
-              .map(promoMapper::toDto);
+        .flatMap(update -> outboxDao.saveWithSession(updateEvent(update), session)
+            .thenReturn(update.updated())))
+        .doOnSuccess(saved -> promoCache.synchronous().invalidate(id))
+        .map(promoMapper::toDto);
+  }
+
+  /**
+   * The request body is decoded one promo at a time, reading stops as soon as it holds more than bulk.max-items.
+   */
+  public Flux<BulkItemResultDto> bulkUpsertPromos(Flux<PromoDto> promoDtos, Boolean orderedParam) {
+    return promoDtos.take(bulkProps.maxItems() + 1L)
+        .collectList()
+        .flatMapMany(list -> bulkUpsertPromos(list, orderedParam));
+  }
+
+  private Flux<BulkItemResultDto> bulkUpsertPromos(List<PromoDto> promoDtos, Boolean orderedParam) {
+    if (promoDtos.size() > bulkProps.maxItems()) {
+      return Flux.error(new BulkRequestTooLargeException(
+          "Bulk request contains more than " + bulkProps.maxItems() + " promos"));
+    }
+    boolean ordered = orderedParam != null ? orderedParam : bulkProps.ordered();
+    log.info("Bulk upsert of {} promos, ordered: {}", promoDtos.size(), ordered);
+
+    List<BulkItemResultDto> results = new ArrayList<>(promoDtos.size());
+    List<IndexedPromo> valid = new ArrayList<>(promoDtos.size());
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < promoDtos.size(); i++) {
+      PromoDto dto = promoDtos.get(i);
+      Set<ConstraintViolation<PromoDto>> violations = validator.validate(dto);
+      if (!violations.isEmpty()) {
+        results.add(new BulkItemResultDto(i, dto.id(), BulkItemResultDto.Result.FAILED, describe(violations)));
+        continue;
+      }
+      Promo entity = promoMapper.toEntity(dto);
+      entity.setCreatedAt(now);
+      entity.setUpdatedAt(now);
+      valid.add(new IndexedPromo(i, entity));
+    }
+
+    // an ordered bulk stops at the first invalid item, nothing after it is written
+    if (ordered && !results.isEmpty()) {
+      int firstInvalid = results.get(0).index();
+      List<IndexedPromo> skipped = valid.stream().filter(p -> p.index() > firstInvalid).toList();
+      valid.removeIf(p -> p.index() > firstInvalid);
+      skipped.forEach(p -> results.add(skippedResult(p)));
+    }
+
+    AtomicBoolean aborted = new AtomicBoolean(false);
+    return Flux.fromIterable(valid)
+        .buffer(bulkProps.chunkSize())
+        .concatMap(chunk -> aborted.get()
+            ? Flux.fromIterable(chunk).map(this::skippedResult)
+            : writeChunk(chunk, ordered, aborted))
+        .collectList()
+        .flatMapMany(written -> {
+          results.addAll(written);
+          results.sort(Comparator.comparingInt(BulkItemResultDto::index));
+          return Flux.fromIterable(results);
+        });
+  }
+
+  /**
+   * Writes a chunk and its outbox entries in one transaction. A write error aborts the transaction, so the failed
+   * items, and for an ordered write everything after them, are taken out and the rest is written again.
+   */
+  private Flux<BulkItemResultDto> writeChunk(List<IndexedPromo> chunk, boolean ordered, AtomicBoolean aborted) {
+    if (chunk.isEmpty()) {
+      return Flux.empty();
+    }
+    List<Promo> promos = chunk.stream().map(IndexedPromo::promo).toList();
+    return inTransaction(session -> promoDao.bulkUpsertWithSession(promos, ordered, session)
+            .flatMap(outcome -> outcome.errors().isEmpty()
+                ? recordEvents(promos, outcome, session).thenReturn(outcome)
+                : Mono.error(new RejectedChunkException(outcome))))
+        .map(outcome -> {
+          promos.forEach(promo -> promoCache.synchronous().invalidate(promo.getId()));
+          return toResults(chunk, outcome);
+        })
+        .flatMapMany(Flux::fromIterable)
+        .onErrorResume(RejectedChunkException.class, e -> {
+          if (ordered) {
+            aborted.set(true);
+          }
+          BulkWriteOutcome outcome = e.outcome;
+          List<BulkItemResultDto> rejected = new ArrayList<>();
+          List<IndexedPromo> retry = new ArrayList<>(chunk.size());
+          for (int i = 0; i < chunk.size(); i++) {
+            IndexedPromo item = chunk.get(i);
+            String error = outcome.errors().get(i);
+            if (error != null) {
+              rejected.add(new BulkItemResultDto(item.index(), item.promo().getId(), BulkItemResultDto.Result.FAILED, error));
+            } else if (i >= outcome.attempted()) {
+              rejected.add(skippedResult(item));
+            } else {
+              retry.add(item);
+            }
+          }
+          return writeChunk(retry, ordered, aborted).concatWith(Flux.fromIterable(rejected));
+        })
+        .onErrorResume(e -> {
+          log.error("Bulk write of {} promos failed: {}", chunk.size(), e.getMessage());
+          if (ordered) {
+            aborted.set(true);
+          }
+          return Flux.fromIterable(chunk)
+              .map(p -> new BulkItemResultDto(p.index(), p.promo().getId(), BulkItemResultDto.Result.FAILED, e.getMessage()));
         });
   }
 
+  /**
+   * Events are built from the stored promos, they carry the version and createdAt the upsert pipeline produced.
+   */
+  private Mono<Void> recordEvents(List<Promo> promos, BulkWriteOutcome outcome, ClientSession session) {
+    return promoDao.findByIdsWithSession(promos.stream().map(Promo::getId).toList(), session)
+        .collectMap(Promo::getId)
+        .flatMap(stored -> {
+          List<OutboxEvent> events = new ArrayList<>(promos.size());
+          for (int i = 0; i < promos.size(); i++) {
+            PromoEvent.EventType type = outcome.created().contains(i)
+                ? PromoEvent.EventType.PROMO_CREATED
+                : PromoEvent.EventType.PROMO_UPDATED;
+            events.add(OutboxEvent.of(buildPromoEvent(stored.get(promos.get(i).getId()), type)));
+          }
+          return outboxDao.saveAllWithSession(events, session);
+        });
+  }
+
+  private List<BulkItemResultDto> toResults(List<IndexedPromo> chunk, BulkWriteOutcome outcome) {
+    List<BulkItemResultDto> results = new ArrayList<>(chunk.size());
+    for (int i = 0; i < chunk.size(); i++) {
+      IndexedPromo item = chunk.get(i);
+      boolean created = outcome.created().contains(i);
+      results.add(new BulkItemResultDto(item.index(), item.promo().getId(),
+          created ? BulkItemResultDto.Result.CREATED : BulkItemResultDto.Result.UPDATED, null));
+    }
+    return results;
+  }
+
+  /**
+   * Imports an uploaded file while it is still being read. Rows are validated like single promos and written in
+   * unordered chunks of bulk.chunk-size, up to import.write-concurrency chunks at a time, so only those chunks are
+   * held in memory. One progress entry is emitted per written chunk, the last one has done set.
+   */
+  public Flux<ImportProgressDto> importPromos(Flux<DataBuffer> content, PromoImportReader.Format format) {
+    log.info("Import of {} promos started", format);
+    return Flux.defer(() -> {
+      AtomicReference<ImportProgressDto> total = new AtomicReference<>(
+          new ImportProgressDto(0, 0, 0, 0, List.of(), false));
+      return PromoImportReader.read(content, format, objectMapper)
+          .buffer(bulkProps.chunkSize())
+          .flatMap(this::importChunk, importProps.writeConcurrency())
+          .map(chunk -> total.updateAndGet(current -> accumulate(current, chunk)))
+          .concatWith(Mono.fromSupplier(() -> {
+            ImportProgressDto last = total.get();
+            log.info("Import finished, {} rows, {} created, {} updated, {} failed",
+                last.rows(), last.created(), last.updated(), last.failed());
+            return new ImportProgressDto(last.rows(), last.created(), last.updated(), last.failed(), List.of(), true);
+          }));
+    });
+  }
+
+  private Mono<ImportProgressDto> importChunk(List<PromoImportReader.Row> rows) {
+    List<BulkItemResultDto> errors = new ArrayList<>();
+    List<IndexedPromo> valid = new ArrayList<>(rows.size());
+    LocalDateTime now = LocalDateTime.now();
+    for (PromoImportReader.Row row : rows) {
+      if (row.error() != null) {
+        errors.add(new BulkItemResultDto(row.line(), null, BulkItemResultDto.Result.FAILED, row.error()));
+        continue;
+      }
+      Set<ConstraintViolation<PromoDto>> violations = validator.validate(row.promo());
+      if (!violations.isEmpty()) {
+        errors.add(new BulkItemResultDto(row.line(), row.promo().id(), BulkItemResultDto.Result.FAILED,
+            describe(violations)));
+        continue;
+      }
+      Promo entity = promoMapper.toEntity(row.promo());
+      entity.setCreatedAt(now);
+      entity.setUpdatedAt(now);
+      valid.add(new IndexedPromo(row.line(), entity));
+    }
+    Flux<BulkItemResultDto> written = valid.isEmpty()
+        ? Flux.empty()
+        : writeChunk(valid, false, new AtomicBoolean(false));
+    return written.collectList()
+        .map(results -> {
+          long created = 0;
+          long updated = 0;
+          for (BulkItemResultDto result : results) {
+            switch (result.result()) {
+              case CREATED -> created++;
+              case UPDATED -> updated++;
+              default -> errors.add(result);
+            }
+          }
+          return new ImportProgressDto(rows.size(), created, updated, errors.size(), errors, false);
+        });
+  }
+
+  private static ImportProgressDto accumulate(ImportProgressDto total, ImportProgressDto chunk) {
+    return new ImportProgressDto(total.rows() + chunk.rows(), total.created() + chunk.created(),
+        total.updated() + chunk.updated(), total.failed() + chunk.failed(), chunk.errors(), false);
+  }
+
+  private BulkItemResultDto skippedResult(IndexedPromo item) {
+    return new BulkItemResultDto(item.index(), item.promo().getId(), BulkItemResultDto.Result.SKIPPED,
+        "Not written, ordered bulk stopped at an earlier error");
+  }
+
+  private static String describe(Set<ConstraintViolation<PromoDto>> violations) {
+    return violations.stream()
+        .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+        .sorted()
+        .collect(Collectors.joining("; "));
+  }
+
   public Mono<Void> deletePromo(String id) {
     log.info("Delete promo with id: {}", id);
 
-    return promoDao.findById(id)
+    return inTransaction(session -> promoDao.findByIdWithSession(id, session)
         .switchIfEmpty(Mono.error(new PromoNotFoundException("Promo not found with id " + id)))
-        .flatMap(existing ->
-            Mono.from(promoDao.getCollection().deleteOne(Filters.eq("_id", id)))
-                .doOnSuccess(result -> {
-                  if (result.getDeletedCount() == 1) {
-                    sendKafkaEvent(existing, PromoEvent.EventType.PROMO_DELETED);
-                  }
-                })
-        )
+        .flatMap(existing -> promoDao.deleteWithSession(id, session)
+            .flatMap(deleted -> deleted
+                ? outboxDao.saveWithSession(
+                    OutboxEvent.of(buildPromoEvent(existing, PromoEvent.EventType.PROMO_DELETED)), session)
+                    .thenReturn(true)
+                : Mono.just(false))))
+        .doOnSuccess(deleted -> promoCache.synchronous().invalidate(id))
         .then();
   }
 
-  public Flux<PromoDto> getPaginatedPromos(int page, int size) {
-    return promoDao.pagination(page, size)
-        .map(promoMapper::toDto);
+  public Flux<PromoDto> getPaginatedPromos(int page, int size, Set<String> fields) {
+    return promoDao.pagination(page, size, PromoFields.projection(fields))
+        .map(promo -> PromoFields.retain(promoMapper.toDto(promo), fields));
   }
 
-  public Mono<PromoDto> getPromoById(String id) {
-    return promoDao.findById(id)
-        .switchIfEmpty(Mono.error(new PromoNotFoundException("Promo not found with id " + id)))
-        .map(promoMapper::toDto);
+  public Mono<PromoPageDto<PromoDto>> getPromosAfter(String cursor, int requestedSize, Set<String> fields) {
+    return pageAfter(cursor, requestedSize, PromoFields.projection(fields),
+        promo -> PromoFields.retain(promoMapper.toDto(promo), fields), PromoDto::id);
   }
 
-  private void sendKafkaEvent(Promo promo, PromoEvent.EventType type) {
-    PromoEvent event = buildPromoEvent(promo, type);
-    SenderRecord<String, PromoEvent, String> record =
-        SenderRecord.create("promo-topic", null, System.currentTimeMillis(), promo.getId(), event, null);
+  public Flux<PromoSummaryDto> getPaginatedSummaries(int page, int size) {
+    return promoDao.pagination(page, size, PromoFields.SUMMARY_PROJECTION)
+        .map(promoMapper::toSummary);
+  }
 
-    kafkaSender.send(Mono.just(record))
-        .doOnError(e -> log.error("Failed to send Kafka event: {}", e.getMessage()))
-        .subscribe();
+  public Mono<PromoPageDto<PromoSummaryDto>> getSummariesAfter(String cursor, int requestedSize) {
+    return pageAfter(cursor, requestedSize, PromoFields.SUMMARY_PROJECTION, promoMapper::toSummary,
+        PromoSummaryDto::id);
   }
 
-  private PromoEvent buildPromoEvent(Promo promo, PromoEvent.EventType type) {
+  private <T> Mono<PromoPageDto<T>> pageAfter(String cursor, int requestedSize, Bson projection,
+                                              Function<Promo, T> mapper, Function<T, String> idOf) {
+    String lastId = PageCursor.decode(cursor);
+    int size = Math.max(requestedSize, 1);
+
+    // one extra document tells whether another page exists
+    return promoDao.findPageAfter(lastId, size + 1, projection)
+        .map(mapper)
+        .collectList()
+        .map(promos -> {
+          if (promos.size() <= size) {
+            return new PromoPageDto<>(promos, null);
+          }
+          List<T> page = promos.subList(0, size);
+          return new PromoPageDto<>(page, PageCursor.encode(idOf.apply(page.get(size - 1))));
+        });
+  }
+
+  public enum SearchCount {
+    NONE,
+    EXACT,
+    ESTIMATED
+  }
+
+  /**
+   * A page of an index backed search, see {@link PromoSearch} for the supported filter combinations. An estimated
+   * count stops at the configured limit.
+   */
+  public Mono<PromoSearchPageDto> searchPromos(PromoSearch search, String cursor, int requestedSize,
+                                               SearchCount count, Set<String> fields) {
+    search.validate();
+    SearchCursor.Position after = SearchCursor.decode(cursor, search.sort(), search.descending());
+    int size = Math.min(Math.max(requestedSize, 1), searchProps.maxPageSize());
+    String sortField = search.sort().field();
+
+    Set<String> read = fields;
+    if (fields != null && !fields.contains(sortField)) {
+      // the last promo's sort value goes into the cursor
+      read = new LinkedHashSet<>(fields);
+      read.add(sortField);
+    }
+    Mono<PromoPageDto<PromoDto>> page = promoDao.search(search,
+            after == null ? null : after.value(), after == null ? null : after.id(), size + 1,
+            PromoFields.projection(read))
+        .map(promoMapper::toDto)
+        .collectList()
+        .map(promos -> {
+          if (promos.size() <= size) {
+            return new PromoPageDto<>(promos, null);
+          }
+          PromoDto last = promos.get(size - 1);
+          return new PromoPageDto<>(promos.subList(0, size), SearchCursor.encode(search.sort(),
+              search.descending(), sortValue(last, search.sort()), last.id()));
+        });
+    Mono<Optional<Long>> total = switch (count) {
+      case NONE -> Mono.just(Optional.empty());
+      case EXACT -> promoDao.countSearch(search, null).map(Optional::of);
+      case ESTIMATED -> promoDao.countSearch(search, searchProps.estimatedCountLimit()).map(Optional::of);
+    };
+    return Mono.zip(page, total)
+        .map(tuple -> {
+          Long matched = tuple.getT2().orElse(null);
+          Boolean exact = matched == null ? null
+              : count == SearchCount.EXACT || matched < searchProps.estimatedCountLimit();
+          List<PromoDto> items = tuple.getT1().items().stream()
+              .map(dto -> PromoFields.retain(dto, fields))
+              .toList();
+          return new PromoSearchPageDto(items, tuple.getT1().nextCursor(), matched, exact);
+        });
+  }
+
+  private static Object sortValue(PromoDto promo, PromoSearch.Sort sort) {
+    return switch (sort) {
+      case STARTS_AT -> promo.startsAt();
+      case ENDS_AT -> promo.endsAt();
+      case DISCOUNT_PERCENT -> promo.discountPercent();
+    };
+  }
+
+  /**
+   * Only full promos are cached, a sparse read is trimmed from the cached copy or projected in Mongo.
+   */
+  public Mono<PromoDto> getPromoById(String id, Set<String> fields) {
+    Mono<PromoDto> promo;
+    CompletableFuture<PromoDto> cached = promoCache.getIfPresent(id);
+    if (cached != null || fields == null) {
+      // the load is shared with concurrent readers, one of them going away must not cancel it
+      promo = Mono.fromFuture(() -> promoCache.get(id, (key, executor) -> promoDao.findById(key)
+              .map(promoMapper::toDto)
+              .toFuture()), true)
+          .map(dto -> PromoFields.retain(dto, fields));
+    } else {
+      promo = promoDao.findById(id, PromoFields.projection(fields))
+          .map(dto -> PromoFields.retain(promoMapper.toDto(dto), fields));
+    }
+    return promo.switchIfEmpty(Mono.error(new PromoNotFoundException("Promo not found with id " + id)));
+  }
+
+  /**
+   * The current version of a promo, from the cache or from a lookup of the version field alone. A promo written
+   * before versions were introduced is at version 0.
+   */
+  public Mono<Long> getPromoVersion(String id) {
+    CompletableFuture<PromoDto> cached = promoCache.getIfPresent(id);
+    PromoDto loaded = cached != null && cached.isDone() && !cached.isCompletedExceptionally() ? cached.join() : null;
+    if (loaded != null) {
+      return Mono.just(loaded.version() == null ? 0L : loaded.version());
+    }
+    return promoDao.findById(id, VERSION_PROJECTION)
+        .map(promo -> promo.getVersion() == null ? 0L : promo.getVersion())
+        .switchIfEmpty(Mono.error(new PromoNotFoundException("Promo not found with id " + id)));
+  }
+
+  public Mono<BestDiscountDto> getBestDiscountForBook(String bookId) {
+    return Mono.justOrEmpty(activePromoIndex.findBest(bookId, LocalDateTime.now()))
+        .switchIfEmpty(Mono.error(new PromoNotFoundException("No active promo for book " + bookId)));
+  }
+
+  private <T> Mono<T> inTransaction(TransactionalOperation<T> operation) {
+    return Mono.usingWhen(
+            promoDao.startSession(),
+            session -> {
+              session.startTransaction();
+              return operation.execute(session);
+            },
+            session -> Mono.from(session.commitTransaction()).doFinally(signal -> session.close()),
+            (session, error) -> Mono.from(session.abortTransaction()).doFinally(signal -> session.close()),
+            session -> Mono.from(session.abortTransaction()).doFinally(signal -> session.close()))
+        .retryWhen(Retry.max(3).filter(e -> e instanceof MongoException mongoException
+            && mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)))
+        .onErrorMap(MongoException.class, e -> new TransactionFailedException("Transaction failed: " + e.getMessage(), e));
+  }
+
+  /**
+   * A delta unless it is this promo's turn for a full snapshot or the update cleared a field, which a delta,
+   * where null means unchanged, cannot express. The state topic always gets the full promo.
+   */
+  private OutboxEvent updateEvent(PromoUpdate update) {
+    Promo updated = update.updated();
+    PromoEvent snapshot = buildPromoEvent(updated, PromoEvent.EventType.PROMO_UPDATED);
+    if (!eventProps.delta() || updated.getVersion() % eventProps.fullEvery() == 0
+        || clearsField(update.previous(), updated)) {
+      return OutboxEvent.of(snapshot);
+    }
+    return OutboxEvent.of(buildDeltaEvent(update.previous(), updated), snapshot);
+  }
+
+  private static boolean clearsField(Promo previous, Promo updated) {
+    return cleared(previous.getName(), updated.getName())
+        || cleared(previous.getDescription(), updated.getDescription())
+        || cleared(previous.getDiscountPercent(), updated.getDiscountPercent())
+        || cleared(previous.getBookIds(), updated.getBookIds())
+        || cleared(previous.getStatus(), updated.getStatus())
+        || cleared(previous.getStartsAt(), updated.getStartsAt())
+        || cleared(previous.getEndsAt(), updated.getEndsAt());
+  }
+
+  private static boolean cleared(Object previous, Object updated) {
+    return previous != null && updated == null;
+  }
+
+  /**
+   * Carries the promo id, version pair and only the fields that differ, bookIds as added and removed ids.
+   */
+  private static PromoEvent buildDeltaEvent(Promo previous, Promo updated) {
+    PromoEvent event = new PromoEvent();
+    event.setEventId(updated.getId());
+    event.setEventType(PromoEvent.EventType.PROMO_DELTA);
+    event.setOccurredAt(Instant.now());
+
+    PromoEvent.Payload payload = new PromoEvent.Payload();
+    payload.setPromoId(updated.getId());
+    payload.setName(changed(previous.getName(), updated.getName()));
+    payload.setDescription(changed(previous.getDescription(), updated.getDescription()));
+    payload.setDiscountPercent(changed(previous.getDiscountPercent(), updated.getDiscountPercent()));
+    payload.setStatus(changed(previous.getStatus(), updated.getStatus()));
+    payload.setStartsAt(changed(previous.getStartsAt(), updated.getStartsAt()));
+    payload.setEndsAt(changed(previous.getEndsAt(), updated.getEndsAt()));
+    payload.setUpdatedAt(updated.getUpdatedAt());
+    payload.setTimestamp(Instant.now());
+    payload.setVersion(updated.getVersion());
+    payload.setBaseVersion(updated.getVersion() - 1);
+
+    Set<String> before = previous.getBookIds() == null ? Set.of() : new LinkedHashSet<>(previous.getBookIds());
+    Set<String> after = updated.getBookIds() == null ? Set.of() : new LinkedHashSet<>(updated.getBookIds());
+    List<String> added = after.stream().filter(bookId -> !before.contains(bookId)).toList();
+    List<String> removed = before.stream().filter(bookId -> !after.contains(bookId)).toList();
+    if (!added.isEmpty()) {
+      payload.setAddedBookIds(added);
+    }
+    if (!removed.isEmpty()) {
+      payload.setRemovedBookIds(removed);
+    }
+
+    event.setPayload(payload);
+    return event;
+  }
+
+  private static <T> T changed(T previous, T updated) {
+    return Objects.equals(previous, updated) ? null : updated;
+  }
+
+  static PromoEvent buildPromoEvent(Promo promo, PromoEvent.EventType type) {
     PromoEvent event = new PromoEvent();
     event.setEventId(promo.getId());
     event.setEventType(type);
@@ -120,8 +580,25 @@ public class PromoService {
     payload.setCreatedAt(promo.getCreatedAt());
     payload.setUpdatedAt(promo.getUpdatedAt());
     payload.setTimestamp(Instant.now());
+    payload.setVersion(promo.getVersion());
 
     event.setPayload(payload);
     return event;
   }
+
+  private record IndexedPromo(int index, Promo promo) {
+  }
+
+  /**
+   * Aborts the transaction of a chunk that had write errors, carrying them to the retry.
+   */
+  private static final class RejectedChunkException extends RuntimeException {
+
+    private final transient BulkWriteOutcome outcome;
+
+    private RejectedChunkException(BulkWriteOutcome outcome) {
+      super(outcome.errors().size() + " write errors", null, false, false);
+      this.outcome = outcome;
+    }
+  }
 }
@@ -0,0 +1,80 @@
+package com.kas.promoservice.service;
+
+import com.kas.promoservice.config.KafkaProps;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.repository.PromoDao;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Republishes the whole promos collection to the compacted state topic, so consumers can rebuild their view
+ * of every promo from Kafka instead of paging through the API.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class PromoStateService {
+
+  private final PromoDao promoDao;
+  private final KafkaSender<String, PromoEvent> kafkaSender;
+  private final KafkaProps kafkaProps;
+
+  private final AtomicBoolean republishing = new AtomicBoolean(false);
+
+  /**
+   * The state topic value for an event: the promo itself, or a tombstone once it is deleted.
+   */
+  public static PromoEvent stateOf(PromoEvent event) {
+    return event.getEventType() == PromoEvent.EventType.PROMO_DELETED ? null : event;
+  }
+
+  /**
+   * Starts streaming every promo to the state topic in id order, one keyset page at a time.
+   *
+   * @return false if a republish is already running
+   */
+  public boolean republishAll() {
+    if (!republishing.compareAndSet(false, true)) {
+      return false;
+    }
+    int batchSize = kafkaProps.stateTopic().republishBatchSize();
+    fetchPage(null, batchSize)
+        // a short page means the end of the collection was reached
+        .expand(page -> page.size() == batchSize ? fetchPage(page.get(page.size() - 1).getId(), batchSize) : Mono.empty())
+        .concatMap(this::publish)
+        .reduce(0L, Long::sum)
+        .doFinally(signal -> republishing.set(false))
+        .subscribe(
+            total -> log.info("Republished {} promos to {}", total, kafkaProps.topics().state()),
+            e -> log.error("Promo state republish failed: {}", e.getMessage()));
+    return true;
+  }
+
+  private Mono<List<Promo>> fetchPage(String lastId, int batchSize) {
+    return promoDao.findPageAfter(lastId, batchSize).collectList();
+  }
+
+  private Mono<Long> publish(List<Promo> page) {
+    Flux<SenderRecord<String, PromoEvent, String>> records = Flux.fromIterable(page)
+        .map(promo -> SenderRecord.create(kafkaProps.topics().state(), null, System.currentTimeMillis(),
+            promo.getId(), PromoService.buildPromoEvent(promo, PromoEvent.EventType.PROMO_UPDATED), promo.getId()));
+    return kafkaSender.send(records)
+        .handle((result, sink) -> {
+          if (result.exception() != null) {
+            sink.error(result.exception());
+          } else {
+            sink.next(result);
+          }
+        })
+        .count();
+  }
+}
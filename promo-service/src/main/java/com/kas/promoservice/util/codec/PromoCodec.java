@@ -0,0 +1,202 @@
+package com.kas.promoservice.util.codec;
+
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+import org.bson.BsonInvalidOperationException;
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams {@link Promo} fields to and from BSON without reflection. The document shape is the one the automatic
+ * POJO codec produced: field names as declared, null fields left out, status as its name, dates as BSON datetimes
+ * read and written as UTC. Numbers stored with another BSON numeric type are converted when integral, unknown fields
+ * are skipped and missing ones keep the {@link Promo} defaults, so projections decode as before.
+ */
+public class PromoCodec implements Codec<Promo> {
+
+    // bookIds are collected here first so the list handed out is allocated once at its final size
+    private static final int MAX_RETAINED_SCRATCH = 1 << 16;
+    private static final ThreadLocal<String[]> SCRATCH = ThreadLocal.withInitial(() -> new String[256]);
+
+    @Override
+    public void encode(BsonWriter writer, Promo promo, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (promo.getId() != null) {
+            writer.writeString("_id", promo.getId());
+        }
+        if (promo.getName() != null) {
+            writer.writeString("name", promo.getName());
+        }
+        if (promo.getDescription() != null) {
+            writer.writeString("description", promo.getDescription());
+        }
+        if (promo.getDiscountPercent() != null) {
+            writer.writeInt32("discountPercent", promo.getDiscountPercent());
+        }
+        if (promo.getBookIds() != null) {
+            writer.writeStartArray("bookIds");
+            for (String bookId : promo.getBookIds()) {
+                if (bookId == null) {
+                    writer.writeNull();
+                } else {
+                    writer.writeString(bookId);
+                }
+            }
+            writer.writeEndArray();
+        }
+        if (promo.getStatus() != null) {
+            writer.writeString("status", promo.getStatus().name());
+        }
+        writeDateTime(writer, "startsAt", promo.getStartsAt());
+        writeDateTime(writer, "endsAt", promo.getEndsAt());
+        writeDateTime(writer, "createdAt", promo.getCreatedAt());
+        writeDateTime(writer, "updatedAt", promo.getUpdatedAt());
+        if (promo.getVersion() != null) {
+            writer.writeInt64("version", promo.getVersion());
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Promo decode(BsonReader reader, DecoderContext decoderContext) {
+        Promo promo = new Promo();
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> promo.setId(readId(reader));
+                case "name" -> promo.setName(readString(reader));
+                case "description" -> promo.setDescription(readString(reader));
+                case "discountPercent" -> promo.setDiscountPercent(readInteger(reader));
+                case "bookIds" -> promo.setBookIds(readStrings(reader));
+                case "status" -> {
+                    String status = readString(reader);
+                    promo.setStatus(status == null ? null : Status.fromString(status));
+                }
+                case "startsAt" -> promo.setStartsAt(readDateTime(reader));
+                case "endsAt" -> promo.setEndsAt(readDateTime(reader));
+                case "createdAt" -> promo.setCreatedAt(readDateTime(reader));
+                case "updatedAt" -> promo.setUpdatedAt(readDateTime(reader));
+                case "version" -> promo.setVersion(readLong(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+        return promo;
+    }
+
+    @Override
+    public Class<Promo> getEncoderClass() {
+        return Promo.class;
+    }
+
+    private static void writeDateTime(BsonWriter writer, String name, LocalDateTime value) {
+        if (value != null) {
+            writer.writeDateTime(name, value.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+    }
+
+    private static String readId(BsonReader reader) {
+        // ids are strings, an ObjectId from a document inserted outside the service reads as its hex form
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId().toHexString();
+        }
+        return readString(reader);
+    }
+
+    private static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        return reader.readString();
+    }
+
+    private static Integer readInteger(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> Math.toIntExact(reader.readInt64());
+            case DOUBLE -> toInt(reader.readDouble());
+            case NULL -> {
+                reader.readNull();
+                yield null;
+            }
+            default -> throw new BsonInvalidOperationException(
+                    "Expected a number for an integer field, found " + reader.getCurrentBsonType());
+        };
+    }
+
+    private static Long readLong(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT64 -> reader.readInt64();
+            case INT32 -> (long) reader.readInt32();
+            case DOUBLE -> toLong(reader.readDouble());
+            case NULL -> {
+                reader.readNull();
+                yield null;
+            }
+            default -> throw new BsonInvalidOperationException(
+                    "Expected a number for a long field, found " + reader.getCurrentBsonType());
+        };
+    }
+
+    // a fractional or out of range double is a broken document, truncating it would hide that
+    private static int toInt(double value) {
+        if (value != Math.rint(value) || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new BsonInvalidOperationException("Expected an integral number for an integer field, found " + value);
+        }
+        return (int) value;
+    }
+
+    private static long toLong(double value) {
+        if (value != Math.rint(value) || value < -0x1p63 || value >= 0x1p63) {
+            throw new BsonInvalidOperationException("Expected an integral number for a long field, found " + value);
+        }
+        return (long) value;
+    }
+
+    private static LocalDateTime readDateTime(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(reader.readDateTime()), ZoneOffset.UTC);
+    }
+
+    private static List<String> readStrings(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.NULL) {
+            reader.readNull();
+            return null;
+        }
+        String[] scratch = SCRATCH.get();
+        int count = 0;
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            if (count == scratch.length) {
+                scratch = Arrays.copyOf(scratch, count * 2);
+            }
+            scratch[count++] = readString(reader);
+        }
+        reader.readEndArray();
+
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(scratch[i]);
+            scratch[i] = null;
+        }
+        if (scratch.length <= MAX_RETAINED_SCRATCH) {
+            SCRATCH.set(scratch);
+        }
+        return values;
+    }
+}
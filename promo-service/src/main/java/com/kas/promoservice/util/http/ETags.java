@@ -0,0 +1,69 @@
+package com.kas.promoservice.util.http;
+
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    public static String weak(Long version) {
+        return "W/" + of(version);
+    }
+
+    /**
+     * Parses a single entity tag into a promo version. Returns null for a missing header or the "*" wildcard,
+     * throws NumberFormatException for a tag that is not a version.
+     */
+    public static Long toVersion(String header) {
+        if (header == null || header.isBlank()) {
+            return null;
+        }
+        String tag = header.trim();
+        if (tag.equals("*")) {
+            return null;
+        }
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        return Long.parseLong(tag);
+    }
+
+    /**
+     * {@link #toVersion} for If-Match, which compares entity tags strongly: a weak tag never matches and throws
+     * IllegalArgumentException.
+     */
+    public static Long toStrongVersion(String header) {
+        if (header != null && header.trim().startsWith("W/")) {
+            throw new IllegalArgumentException("Weak entity tag " + header.trim());
+        }
+        return toVersion(header);
+    }
+
+    /**
+     * Weak comparison, as used by If-None-Match.
+     */
+    public static boolean matches(String header, Long version) {
+        if (header == null || version == null) {
+            return false;
+        }
+        for (String tag : header.split(",")) {
+            if (tag.trim().equals("*")) {
+                return true;
+            }
+            try {
+                if (version.equals(toVersion(tag))) {
+                    return true;
+                }
+            } catch (NumberFormatException ignored) {
+                // not one of ours
+            }
+        }
+        return false;
+    }
+}
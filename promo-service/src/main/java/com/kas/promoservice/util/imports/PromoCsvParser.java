@@ -0,0 +1,143 @@
+package com.kas.promoservice.util.imports;
+
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.exception.InvalidImportException;
+import com.kas.promoservice.model.Status;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parses promo rows of a CSV file with a header row. Columns are named like the PromoDto fields and may come in
+ * any order, bookIds are separated by ';' and dates are ISO local date-times. Quoted fields follow RFC 4180
+ * but cannot span lines.
+ */
+class PromoCsvParser {
+
+    static final List<String> COLUMNS = List.of(
+            "id", "name", "description", "discountPercent", "bookIds", "status", "startsAt", "endsAt");
+
+    private final StringBuilder field = new StringBuilder();
+    private final List<String> values = new ArrayList<>();
+    // column of the file -> index in COLUMNS
+    private int[] positions;
+
+    boolean hasHeader() {
+        return positions != null;
+    }
+
+    void header(String line) {
+        // byte order mark left by spreadsheet exports
+        if (line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        List<String> names = split(line);
+        int[] parsed = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i).trim();
+            parsed[i] = COLUMNS.indexOf(name);
+            if (parsed[i] < 0) {
+                throw new InvalidImportException("Unknown CSV column " + name + ", supported columns are " + COLUMNS);
+            }
+        }
+        positions = parsed;
+    }
+
+    PromoDto parse(String line) {
+        List<String> row = split(line);
+        if (row.size() != positions.length) {
+            throw new IllegalArgumentException("Expected " + positions.length + " columns, got " + row.size());
+        }
+        String[] cells = new String[COLUMNS.size()];
+        for (int i = 0; i < positions.length; i++) {
+            String cell = row.get(i).trim();
+            cells[positions[i]] = cell.isEmpty() ? null : cell;
+        }
+        return new PromoDto(
+                cells[0],
+                cells[1],
+                cells[2],
+                toInteger("discountPercent", cells[3]),
+                cells[4] == null ? null : toBookIds(cells[4]),
+                toStatus(cells[5]),
+                toDateTime("startsAt", cells[6]),
+                toDateTime("endsAt", cells[7]),
+                null,
+                null,
+                null);
+    }
+
+    private List<String> split(String line) {
+        values.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field, fields cannot span lines");
+        }
+        values.add(field.toString());
+        return values;
+    }
+
+    private static Integer toInteger(String column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + ": not a number " + value);
+        }
+    }
+
+    private static List<String> toBookIds(String value) {
+        return Arrays.stream(value.split(";"))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .toList();
+    }
+
+    private static Status toStatus(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Status.fromString(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("status: unknown status " + value);
+        }
+    }
+
+    private static LocalDateTime toDateTime(String column, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + ": not an ISO date-time " + value);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.kas.promoservice.util.imports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.exception.InvalidImportException;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+
+/**
+ * Turns an uploaded file into promo rows as its buffers arrive, only the current line is held in memory.
+ */
+public final class PromoImportReader {
+
+    private static final StringDecoder LINES = StringDecoder.allMimeTypes();
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
+    private PromoImportReader() {
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        /**
+         * Picks the format from the content type, or from the file extension for generic content types.
+         */
+        public static Format of(MediaType contentType, String filename) {
+            if (contentType != null && TEXT_CSV.includes(contentType)) {
+                return CSV;
+            }
+            if (contentType != null && MediaType.APPLICATION_NDJSON.includes(contentType)) {
+                return NDJSON;
+            }
+            String name = filename == null ? "" : filename.toLowerCase();
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            throw new InvalidImportException("Unsupported import format " + contentType + " " + name
+                    + ", use text/csv or application/x-ndjson");
+        }
+    }
+
+    /**
+     * A parsed promo, or the reason the line could not be parsed.
+     *
+     * @param line 1-based line in the file
+     */
+    public record Row(int line, PromoDto promo, String error) {
+    }
+
+    /**
+     * Blank lines and the CSV header produce no row. A CSV header with unknown columns fails the whole import.
+     */
+    public static Flux<Row> read(Flux<DataBuffer> content, Format format, ObjectMapper objectMapper) {
+        return Flux.defer(() -> {
+            PromoCsvParser csv = format == Format.CSV ? new PromoCsvParser() : null;
+            return LINES.decode(content, ResolvableType.forClass(String.class), null, Map.of())
+                    .index()
+                    .handle((indexed, sink) -> {
+                        String line = indexed.getT2();
+                        if (line.isBlank()) {
+                            return;
+                        }
+                        int number = Math.toIntExact(indexed.getT1() + 1);
+                        if (csv != null && !csv.hasHeader()) {
+                            csv.header(line);
+                            return;
+                        }
+                        sink.next(csv != null ? csvRow(csv, number, line) : jsonRow(objectMapper, number, line));
+                    });
+        });
+    }
+
+    private static Row csvRow(PromoCsvParser csv, int number, String line) {
+        try {
+            return new Row(number, csv.parse(line), null);
+        } catch (IllegalArgumentException e) {
+            return new Row(number, null, e.getMessage());
+        }
+    }
+
+    private static Row jsonRow(ObjectMapper objectMapper, int number, String line) {
+        try {
+            return new Row(number, objectMapper.readValue(line, PromoDto.class), null);
+        } catch (JsonProcessingException e) {
+            return new Row(number, null, e.getOriginalMessage());
+        }
+    }
+}
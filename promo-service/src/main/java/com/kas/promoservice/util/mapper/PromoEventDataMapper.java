@@ -0,0 +1,13 @@
+package com.kas.promoservice.util.mapper;
+
+import com.kas.promoeventschema.PromoEventData;
+import com.kas.promoservice.dto.event.PromoEvent;
+import org.mapstruct.Mapper;
+
+@Mapper
+public interface PromoEventDataMapper {
+
+  PromoEventData toData(PromoEvent event);
+  PromoEvent fromData(PromoEventData data);
+
+}
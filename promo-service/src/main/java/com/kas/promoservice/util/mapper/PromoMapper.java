@@ -1,6 +1,7 @@
 package com.kas.promoservice.util.mapper;
 
 import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.dto.PromoSummaryDto;
 import com.kas.promoservice.model.Promo;
 import org.mapstruct.Mapper;
 
@@ -8,6 +9,7 @@ import org.mapstruct.Mapper;
 public interface PromoMapper {
 
   PromoDto toDto(Promo promo);
+  PromoSummaryDto toSummary(Promo promo);
   Promo toEntity(PromoDto promoDto);
 
 }
@@ -0,0 +1,65 @@
+package com.kas.promoservice.util.pagination;
+
+import com.kas.promoservice.exception.InvalidCursorException;
+import com.kas.promoservice.repository.PromoSearch;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Base64;
+
+/**
+ * Keyset cursor of a promo search: the sort it was issued for and the sort value and id of the last promo.
+ * Dates travel as UTC epoch milliseconds, the precision Mongo stores.
+ */
+public final class SearchCursor {
+
+    private static final String PREFIX = "search:";
+
+    public record Position(Object value, String id) {
+    }
+
+    private SearchCursor() {
+    }
+
+    public static String encode(PromoSearch.Sort sort, boolean descending, Object value, String id) {
+        String encodedValue = value instanceof LocalDateTime dateTime
+                ? Long.toString(dateTime.toInstant(ZoneOffset.UTC).toEpochMilli())
+                : String.valueOf(value);
+        String cursor = PREFIX + sort.field() + ":" + direction(descending) + ":" + encodedValue + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the last seen position, or null for a blank cursor which means "first page".
+     */
+    public static Position decode(String cursor, PromoSearch.Sort sort, boolean descending) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String expected = PREFIX + sort.field() + ":" + direction(descending) + ":";
+            if (!decoded.startsWith(expected)) {
+                throw new InvalidCursorException("Cursor " + cursor + " was not issued for this sort");
+            }
+            String position = decoded.substring(expected.length());
+            int separator = position.indexOf(':');
+            if (separator < 0) {
+                throw new InvalidCursorException("Invalid cursor: " + cursor);
+            }
+            long value = Long.parseLong(position.substring(0, separator));
+            String id = position.substring(separator + 1);
+            return sort == PromoSearch.Sort.DISCOUNT_PERCENT
+                    ? new Position(Math.toIntExact(value), id)
+                    : new Position(LocalDateTime.ofInstant(Instant.ofEpochMilli(value), ZoneOffset.UTC), id);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new InvalidCursorException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static String direction(boolean descending) {
+        return descending ? "desc" : "asc";
+    }
+}
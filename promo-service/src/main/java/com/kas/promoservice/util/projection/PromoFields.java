@@ -0,0 +1,96 @@
+package com.kas.promoservice.util.projection;
+
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.dto.PromoSummaryDto;
+import com.kas.promoservice.exception.InvalidFieldsException;
+import com.mongodb.client.model.Projections;
+import org.bson.conversions.Bson;
+
+import java.lang.reflect.RecordComponent;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sparse fieldsets of {@link PromoDto}. A fieldset becomes a Mongo projection, so the fields left out are neither
+ * sent by the server nor decoded, and trims DTOs that were read in full, such as cached ones. id and version are
+ * always part of a fieldset, they back cursors and ETags. Lists default to the {@link #SUMMARY} fieldset, the
+ * full document is asked for with {@link #EVERY_FIELD}.
+ */
+public final class PromoFields {
+
+    private static final Set<String> ALL = names(PromoDto.class);
+    private static final List<String> ALWAYS = List.of("id", "version");
+
+    public static final String EVERY_FIELD = "*";
+    public static final Set<String> SUMMARY = names(PromoSummaryDto.class);
+    public static final Bson SUMMARY_PROJECTION = projection(SUMMARY);
+
+    private PromoFields() {
+    }
+
+    /**
+     * Parses a comma separated field list, null for a blank one or {@link #EVERY_FIELD} which means every field.
+     */
+    public static Set<String> parse(String fields) {
+        if (fields == null || fields.isBlank() || fields.trim().equals(EVERY_FIELD)) {
+            return null;
+        }
+        Set<String> parsed = new LinkedHashSet<>(ALWAYS);
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!ALL.contains(name)) {
+                throw new InvalidFieldsException("Unknown promo field " + name + ", supported fields are " + ALL);
+            }
+            parsed.add(name);
+        }
+        return parsed;
+    }
+
+    /**
+     * Mongo projection of a fieldset, null for every field.
+     */
+    public static Bson projection(Set<String> fields) {
+        if (fields == null) {
+            return null;
+        }
+        List<String> documentFields = fields.stream()
+                .map(field -> field.equals("id") ? "_id" : field)
+                .toList();
+        return Projections.include(documentFields);
+    }
+
+    /**
+     * Clears the fields outside the fieldset. A projected Promo keeps its model defaults for the fields that were
+     * not read, this also drops those.
+     */
+    public static PromoDto retain(PromoDto dto, Set<String> fields) {
+        if (fields == null) {
+            return dto;
+        }
+        return new PromoDto(
+                dto.id(),
+                fields.contains("name") ? dto.name() : null,
+                fields.contains("description") ? dto.description() : null,
+                fields.contains("discountPercent") ? dto.discountPercent() : null,
+                fields.contains("bookIds") ? dto.bookIds() : null,
+                fields.contains("status") ? dto.status() : null,
+                fields.contains("startsAt") ? dto.startsAt() : null,
+                fields.contains("endsAt") ? dto.endsAt() : null,
+                fields.contains("createdAt") ? dto.createdAt() : null,
+                fields.contains("updatedAt") ? dto.updatedAt() : null,
+                dto.version()
+        );
+    }
+
+    private static Set<String> names(Class<? extends Record> type) {
+        return Arrays.stream(type.getRecordComponents())
+                .map(RecordComponent::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,58 @@
+package com.kas.promoservice.util.serializer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kas.promoeventschema.PromoEventBinaryCodec;
+import com.kas.promoeventschema.PromoEventSchema;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.util.mapper.PromoEventDataMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.mapstruct.factory.Mappers;
+
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+public class PromoEventDeserializer implements Deserializer<PromoEvent> {
+    private final ObjectMapper objectMapper;
+    private final PromoEventDataMapper mapper = Mappers.getMapper(PromoEventDataMapper.class);
+
+    public PromoEventDeserializer() {
+        this.objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    @Override
+    public PromoEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(data, PromoEvent.class);
+        } catch (Exception e) {
+            // a poison record must not stall the partition, consumers skip null values
+            log.warn("Skipping undecodable PromoEvent on {}: {}", topic, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public PromoEvent deserialize(String topic, Headers headers, byte[] data) {
+        Header format = headers.lastHeader(PromoEventSchema.FORMAT_HEADER);
+        // records without a format header predate the header and are JSON
+        if (data == null || format == null
+                || !PromoEventSchema.isBinaryFormat(new String(format.value(), StandardCharsets.UTF_8))) {
+            return deserialize(topic, data);
+        }
+        try {
+            return mapper.fromData(PromoEventBinaryCodec.decode(data));
+        } catch (Exception e) {
+            log.warn("Skipping undecodable PromoEvent on {}: {}", topic, e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.kas.promoservice.service;
+
+import com.kas.promoservice.dto.BestDiscountDto;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.model.Promo;
+import com.kas.promoservice.model.Status;
+import com.kas.promoservice.repository.PromoDao;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ActivePromoIndexTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 10, 12, 0);
+
+  private final PromoDao promoDao = mock(PromoDao.class);
+  private final ActivePromoIndex index = new ActivePromoIndex(promoDao);
+
+  @Test
+  void indexesAnEnabledPromoForEachOfItsBooks() {
+    index.index(promo("p-1", 20, List.of("b-1", "b-2", "b-1"), 1L));
+
+    assertThat(index.size()).isEqualTo(1);
+    assertThat(index.findBest("b-1", NOW)).contains(new BestDiscountDto("b-1", "p-1", 20, NOW.plusDays(1)));
+    assertThat(index.findBest("b-2", NOW)).map(BestDiscountDto::promoId).contains("p-1");
+    assertThat(index.findBest("b-3", NOW)).isEmpty();
+  }
+
+  @Test
+  void replacesTheIndexedCopyOfAPromo() {
+    index.index(promo("p-1", 20, List.of("b-1", "b-2"), 1L));
+
+    index.apply(event(PromoEvent.EventType.PROMO_UPDATED, payload("p-1", 30, List.of("b-2", "b-3"), 2L)));
+
+    assertThat(index.size()).isEqualTo(1);
+    assertThat(index.findBest("b-1", NOW)).isEmpty();
+    assertThat(index.findBest("b-2", NOW)).map(BestDiscountDto::discountPercent).contains(30);
+    assertThat(index.findBest("b-3", NOW)).map(BestDiscountDto::discountPercent).contains(30);
+  }
+
+  @Test
+  void removesDeletedAndDisabledPromos() {
+    index.index(promo("p-1", 20, List.of("b-1"), 1L));
+    index.index(promo("p-2", 10, List.of("b-1"), 1L));
+
+    index.apply(event(PromoEvent.EventType.PROMO_DELETED, payload("p-1", null, null, null)));
+    PromoEvent.Payload paused = payload("p-2", 10, List.of("b-1"), 2L);
+    paused.setStatus(Status.PAUSED);
+    index.apply(event(PromoEvent.EventType.PROMO_UPDATED, paused));
+
+    assertThat(index.size()).isZero();
+    assertThat(index.findBest("b-1", NOW)).isEmpty();
+  }
+
+  @Test
+  void reusesTheSlotOfARemovedPromo() {
+    index.index(promo("p-1", 20, List.of("b-1"), 1L));
+    index.apply(event(PromoEvent.EventType.PROMO_DELETED, payload("p-1", null, null, null)));
+
+    index.index(promo("p-2", 15, List.of("b-2"), 1L));
+
+    assertThat(index.findBest("b-1", NOW)).isEmpty();
+    assertThat(index.findBest("b-2", NOW)).map(BestDiscountDto::promoId).contains("p-2");
+  }
+
+  @Test
+  void ignoresAnOlderVersionOfAnIndexedPromo() {
+    index.index(promo("p-1", 30, List.of("b-1"), 3L));
+
+    index.apply(event(PromoEvent.EventType.PROMO_UPDATED, payload("p-1", 10, List.of("b-1"), 2L)));
+    PromoEvent.Payload stalePause = payload("p-1", 10, List.of("b-1"), 2L);
+    stalePause.setStatus(Status.PAUSED);
+    index.apply(event(PromoEvent.EventType.PROMO_UPDATED, stalePause));
+
+    assertThat(index.findBest("b-1", NOW)).map(BestDiscountDto::discountPercent).contains(30);
+  }
+
+  @Test
+  void keepsAPromoRemovedDuringTheRebuildOutOfTheIndex() {
+    Sinks.Many<Promo> scan = Sinks.many().unicast().onBackpressureBuffer();
+    when(promoDao.findByStatus(Status.ENABLED)).thenReturn(scan.asFlux());
+    index.rebuild();
+
+    // the scan read p-1 before it was deleted, but hands it over after the delete event was applied
+    index.apply(event(PromoEvent.EventType.PROMO_DELETED, payload("p-1", null, null, null)));
+    scan.tryEmitNext(promo("p-1", 20, List.of("b-1"), 4L));
+    scan.tryEmitNext(promo("p-2", 10, List.of("b-1"), 1L));
+    scan.tryEmitComplete();
+
+    assertThat(index.findBest("b-1", NOW)).map(BestDiscountDto::promoId).contains("p-2");
+
+    // once the scan is over a re-created promo is indexed again
+    index.index(promo("p-1", 20, List.of("b-1"), 1L));
+    assertThat(index.findBest("b-1", NOW)).map(BestDiscountDto::promoId).contains("p-1");
+  }
+
+  @Test
+  void keepsTheNewerVersionAnEventIndexedDuringTheRebuild() {
+    Sinks.Many<Promo> scan = Sinks.many().unicast().onBackpressureBuffer();
+    when(promoDao.findByStatus(Status.ENABLED)).thenReturn(scan.asFlux());
+    index.rebuild();
+
+    index.apply(event(PromoEvent.EventType.PROMO_UPDATED, payload("p-1", 40, List.of("b-1"), 5L)));
+    scan.tryEmitNext(promo("p-1", 20, List.of("b-1"), 4L));
+    scan.tryEmitComplete();
+
+    assertThat(index.findBest("b-1", NOW)).map(BestDiscountDto::discountPercent).contains(40);
+  }
+
+  @Test
+  void patchesAddedAndRemovedBooksFromADeltaAtTheBaseVersion() {
+    index.index(promo("p-1", 20, List.of("b-1", "b-2"), 1L));
+
+    PromoEvent.Payload delta = delta("p-1", 1L);
+    delta.setAddedBookIds(List.of("b-3"));
+    delta.setRemovedBookIds(List.of("b-1"));
+    delta.setDiscountPercent(25);
+    index.apply(event(PromoEvent.EventType.PROMO_DELTA, delta));
+
+    assertThat(index.findBest("b-1", NOW)).isEmpty();
+    assertThat(index.findBest("b-2", NOW)).map(BestDiscountDto::discountPercent).contains(25);
+    assertThat(index.findBest("b-3", NOW)).map(BestDiscountDto::discountPercent).contains(25);
+
+    // the patched copy is at version 2, the next delta builds on it
+    PromoEvent.Payload next = delta("p-1", 2L);
+    next.setRemovedBookIds(List.of("b-2", "b-3"));
+    index.apply(event(PromoEvent.EventType.PROMO_DELTA, next));
+    assertThat(index.size()).isZero();
+  }
+
+  @Test
+  void reloadsThePromoWhenADeltaDoesNotMatchTheIndexedVersion() {
+    index.index(promo("p-1", 20, List.of("b-1"), 1L));
+    when(promoDao.findById("p-1")).thenReturn(Mono.just(promo("p-1", 35, List.of("b-1"), 3L)));
+
+    PromoEvent.Payload delta = delta("p-1", 2L);
+    delta.setDiscountPercent(30);
+    index.apply(event(PromoEvent.EventType.PROMO_DELTA, delta));
+
+    assertThat(index.findBest("b-1", NOW)).map(BestDiscountDto::discountPercent).contains(35);
+  }
+
+  @Test
+  void picksTheBestDiscountAmongThePromosRunningAtTheTime() {
+    index.index(promo("small", 10, List.of("b-1"), 1L));
+    index.index(promo("large", 40, List.of("b-1"), 1L));
+    Promo ended = promo("ended", 60, List.of("b-1"), 1L);
+    ended.setEndsAt(NOW);
+    index.index(ended);
+    Promo upcoming = promo("upcoming", 50, List.of("b-1"), 1L);
+    upcoming.setStartsAt(NOW.plusHours(1));
+    index.index(upcoming);
+
+    assertThat(index.findBest("b-1", NOW)).map(BestDiscountDto::promoId).contains("large");
+    assertThat(index.findBest("b-1", NOW.plusHours(2))).map(BestDiscountDto::promoId).contains("upcoming");
+    assertThat(index.findBest("b-1", NOW.minusHours(1))).map(BestDiscountDto::promoId).contains("ended");
+  }
+
+  private static Promo promo(String id, int discountPercent, List<String> bookIds, Long version) {
+    return new Promo(id, id, null, discountPercent, bookIds, Status.ENABLED, NOW.minusDays(1), NOW.plusDays(1),
+        NOW.minusDays(2), NOW.minusDays(2), version);
+  }
+
+  private static PromoEvent.Payload payload(String promoId, Integer discountPercent, List<String> bookIds,
+                                            Long version) {
+    PromoEvent.Payload payload = new PromoEvent.Payload();
+    payload.setPromoId(promoId);
+    payload.setDiscountPercent(discountPercent);
+    payload.setBookIds(bookIds);
+    payload.setStatus(Status.ENABLED);
+    payload.setStartsAt(NOW.minusDays(1));
+    payload.setEndsAt(NOW.plusDays(1));
+    payload.setVersion(version);
+    return payload;
+  }
+
+  private static PromoEvent.Payload delta(String promoId, long baseVersion) {
+    PromoEvent.Payload delta = new PromoEvent.Payload();
+    delta.setPromoId(promoId);
+    delta.setBaseVersion(baseVersion);
+    delta.setVersion(baseVersion + 1);
+    return delta;
+  }
+
+  private static PromoEvent event(PromoEvent.EventType type, PromoEvent.Payload payload) {
+    PromoEvent event = new PromoEvent();
+    event.setEventId(payload.getPromoId());
+    event.setEventType(type);
+    event.setPayload(payload);
+    return event;
+  }
+}
@@ -0,0 +1,33 @@
+package com.kas.promoservice.util.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ETagsTest {
+
+    @Test
+    void parsesStrongTagsAndTheWildcard() {
+        assertThat(ETags.toStrongVersion("\"5\"")).isEqualTo(5L);
+        assertThat(ETags.toStrongVersion(" \"5\" ")).isEqualTo(5L);
+        assertThat(ETags.toStrongVersion("*")).isNull();
+        assertThat(ETags.toStrongVersion(null)).isNull();
+    }
+
+    @Test
+    void rejectsWeakTagsForIfMatch() {
+        assertThatThrownBy(() -> ETags.toStrongVersion("W/\"5\""))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ETags.toStrongVersion("\"five\""))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void comparesWeaklyForIfNoneMatch() {
+        assertThat(ETags.matches("W/\"5\"", 5L)).isTrue();
+        assertThat(ETags.matches("\"4\", W/\"5\"", 5L)).isTrue();
+        assertThat(ETags.matches("*", 5L)).isTrue();
+        assertThat(ETags.matches("\"4\", other", 5L)).isFalse();
+    }
+}
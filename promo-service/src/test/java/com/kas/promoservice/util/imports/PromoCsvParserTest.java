@@ -0,0 +1,113 @@
+package com.kas.promoservice.util.imports;
+
+import com.kas.promoservice.dto.PromoDto;
+import com.kas.promoservice.exception.InvalidImportException;
+import com.kas.promoservice.model.Status;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromoCsvParserTest {
+
+    @Test
+    void parsesEveryColumn() {
+        PromoCsvParser parser = parser("id,name,description,discountPercent,bookIds,status,startsAt,endsAt");
+
+        PromoDto promo = parser.parse("p-1,Spring sale,All books,15,b-1;b-2,enabled,2026-03-01T00:00,2026-03-31T23:59");
+
+        assertThat(promo.id()).isEqualTo("p-1");
+        assertThat(promo.name()).isEqualTo("Spring sale");
+        assertThat(promo.description()).isEqualTo("All books");
+        assertThat(promo.discountPercent()).isEqualTo(15);
+        assertThat(promo.bookIds()).containsExactly("b-1", "b-2");
+        assertThat(promo.status()).isEqualTo(Status.ENABLED);
+        assertThat(promo.startsAt()).isEqualTo(LocalDateTime.of(2026, 3, 1, 0, 0));
+        assertThat(promo.endsAt()).isEqualTo(LocalDateTime.of(2026, 3, 31, 23, 59));
+        assertThat(promo.version()).isNull();
+    }
+
+    @Test
+    void mapsColumnsByHeaderInAnyOrderAndLeavesMissingOnesNull() {
+        PromoCsvParser parser = parser(" status , name ");
+
+        PromoDto promo = parser.parse("paused,Clearance");
+
+        assertThat(promo.name()).isEqualTo("Clearance");
+        assertThat(promo.status()).isEqualTo(Status.PAUSED);
+        assertThat(promo.id()).isNull();
+        assertThat(promo.bookIds()).isNull();
+    }
+
+    @Test
+    void unquotesFieldsWithCommasAndEscapedQuotes() {
+        PromoCsvParser parser = parser("name,description");
+
+        PromoDto promo = parser.parse("\"Books, music\",\"The \"\"best\"\" deals\"");
+
+        assertThat(promo.name()).isEqualTo("Books, music");
+        assertThat(promo.description()).isEqualTo("The \"best\" deals");
+    }
+
+    @Test
+    void treatsEmptyCellsAsNullAndSkipsEmptyBookIds() {
+        PromoCsvParser parser = parser("name,description,discountPercent,bookIds");
+
+        PromoDto promo = parser.parse("Sale,,  ,b-1;; b-2 ;");
+
+        assertThat(promo.description()).isNull();
+        assertThat(promo.discountPercent()).isNull();
+        assertThat(promo.bookIds()).containsExactly("b-1", "b-2");
+    }
+
+    @Test
+    void stripsByteOrderMarkFromHeader() {
+        PromoCsvParser parser = parser("\uFEFFid,name");
+
+        assertThat(parser.parse("p-1,Sale").id()).isEqualTo("p-1");
+    }
+
+    @Test
+    void rejectsUnknownHeaderColumn() {
+        PromoCsvParser parser = new PromoCsvParser();
+
+        assertThatThrownBy(() -> parser.header("id,price"))
+                .isInstanceOf(InvalidImportException.class)
+                .hasMessageContaining("price");
+        assertThat(parser.hasHeader()).isFalse();
+    }
+
+    @Test
+    void rejectsMalformedRowsWithTheReason() {
+        PromoCsvParser parser = parser("name,discountPercent,status,startsAt");
+
+        assertThatThrownBy(() -> parser.parse("Sale,10,enabled"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Expected 4 columns, got 3");
+        assertThatThrownBy(() -> parser.parse("Sale,ten,enabled,2026-03-01T00:00"))
+                .hasMessage("discountPercent: not a number ten");
+        assertThatThrownBy(() -> parser.parse("Sale,10,frozen,2026-03-01T00:00"))
+                .hasMessage("status: unknown status frozen");
+        assertThatThrownBy(() -> parser.parse("Sale,10,enabled,01.03.2026"))
+                .hasMessage("startsAt: not an ISO date-time 01.03.2026");
+        assertThatThrownBy(() -> parser.parse("\"Sale,10,enabled,2026-03-01T00:00"))
+                .hasMessageContaining("Unterminated quoted field");
+    }
+
+    @Test
+    void keepsParsingAfterARejectedRow() {
+        PromoCsvParser parser = parser("name,discountPercent");
+
+        assertThatThrownBy(() -> parser.parse("\"Broken,10"));
+
+        assertThat(parser.parse("Sale,10").name()).isEqualTo("Sale");
+    }
+
+    private static PromoCsvParser parser(String header) {
+        PromoCsvParser parser = new PromoCsvParser();
+        parser.header(header);
+        return parser;
+    }
+}
@@ -0,0 +1,74 @@
+package com.kas.promoservice.util.imports;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.kas.promoservice.exception.InvalidImportException;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PromoImportReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void readsCsvRowsSplitAcrossBuffersWithFileLineNumbers() {
+        List<PromoImportReader.Row> rows = read(PromoImportReader.Format.CSV,
+                "id,name,disc", "ountPercent\r\np-1,Sale,1", "0\r\n\r\np-2,Clearance,ten\n");
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0).line()).isEqualTo(2);
+        assertThat(rows.get(0).promo().discountPercent()).isEqualTo(10);
+        assertThat(rows.get(0).error()).isNull();
+        assertThat(rows.get(1).line()).isEqualTo(4);
+        assertThat(rows.get(1).promo()).isNull();
+        assertThat(rows.get(1).error()).isEqualTo("discountPercent: not a number ten");
+    }
+
+    @Test
+    void readsNdjsonRowsAndReportsUnparsableOnes() {
+        List<PromoImportReader.Row> rows = read(PromoImportReader.Format.NDJSON,
+                "{\"id\":\"p-1\",\"name\":\"Sale\",\"status\":\"enabled\"}\n{\"id\":",
+                "\"p-2\"\n\n{\"startsAt\":\"2026-03-01T00:00:00\"}");
+
+        assertThat(rows).extracting(PromoImportReader.Row::line).containsExactly(1, 2, 4);
+        assertThat(rows.get(0).promo().name()).isEqualTo("Sale");
+        assertThat(rows.get(1).promo()).isNull();
+        assertThat(rows.get(1).error()).isNotBlank();
+        assertThat(rows.get(2).promo().startsAt()).hasYear(2026);
+    }
+
+    @Test
+    void failsTheImportOnAnUnknownCsvColumn() {
+        assertThatThrownBy(() -> read(PromoImportReader.Format.CSV, "id,price\np-1,10\n"))
+                .isInstanceOf(InvalidImportException.class);
+    }
+
+    @Test
+    void picksTheFormatFromContentTypeThenExtension() {
+        assertThat(PromoImportReader.Format.of(MediaType.parseMediaType("text/csv;charset=UTF-8"), null))
+                .isEqualTo(PromoImportReader.Format.CSV);
+        assertThat(PromoImportReader.Format.of(MediaType.APPLICATION_NDJSON, "promos.csv"))
+                .isEqualTo(PromoImportReader.Format.NDJSON);
+        assertThat(PromoImportReader.Format.of(MediaType.APPLICATION_OCTET_STREAM, "Promos.CSV"))
+                .isEqualTo(PromoImportReader.Format.CSV);
+        assertThat(PromoImportReader.Format.of(null, "promos.jsonl"))
+                .isEqualTo(PromoImportReader.Format.NDJSON);
+        assertThatThrownBy(() -> PromoImportReader.Format.of(MediaType.APPLICATION_JSON, "promos.json"))
+                .isInstanceOf(InvalidImportException.class);
+    }
+
+    private List<PromoImportReader.Row> read(PromoImportReader.Format format, String... chunks) {
+        Flux<DataBuffer> content = Flux.fromArray(chunks)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+        return PromoImportReader.read(content, format, objectMapper).collectList().block();
+    }
+}
@@ -0,0 +1,45 @@
+package com.kas.promoservice.util.pagination;
+
+import com.kas.promoservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PageCursorTest {
+
+    @Test
+    void decodesWhatItEncodes() {
+        String id = "5f1b2c3d-äöü/+=";
+
+        assertThat(PageCursor.decode(PageCursor.encode(id))).isEqualTo(id);
+    }
+
+    @Test
+    void encodesUrlSafeWithoutPadding() {
+        assertThat(PageCursor.encode("a?b>c~d")).doesNotContain("+", "/", "=");
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode(" ")).isNull();
+    }
+
+    @Test
+    void rejectsCursorThatIsNotBase64() {
+        assertThatThrownBy(() -> PageCursor.decode("not base64!"))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsCursorWithoutPrefix() {
+        String cursor = Base64.getUrlEncoder().encodeToString("42".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> PageCursor.decode(cursor))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,87 @@
+package com.kas.promoservice.util.pagination;
+
+import com.kas.promoservice.exception.InvalidCursorException;
+import com.kas.promoservice.repository.PromoSearch;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchCursorTest {
+
+    @Test
+    void decodesDatePositionAtMillisecondPrecision() {
+        LocalDateTime startsAt = LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_456_789);
+        String cursor = SearchCursor.encode(PromoSearch.Sort.STARTS_AT, false, startsAt, "promo-1");
+
+        SearchCursor.Position position = SearchCursor.decode(cursor, PromoSearch.Sort.STARTS_AT, false);
+
+        assertThat(position.value()).isEqualTo(LocalDateTime.of(2026, 3, 1, 12, 30, 15, 123_000_000));
+        assertThat(position.id()).isEqualTo("promo-1");
+    }
+
+    @Test
+    void decodesDiscountPositionAsInteger() {
+        String cursor = SearchCursor.encode(PromoSearch.Sort.DISCOUNT_PERCENT, true, 35, "promo-2");
+
+        SearchCursor.Position position = SearchCursor.decode(cursor, PromoSearch.Sort.DISCOUNT_PERCENT, true);
+
+        assertThat(position.value()).isEqualTo(35);
+        assertThat(position.id()).isEqualTo("promo-2");
+    }
+
+    @Test
+    void keepsSeparatorsInsideTheId() {
+        String cursor = SearchCursor.encode(PromoSearch.Sort.DISCOUNT_PERCENT, false, 10, "tenant:promo:3");
+
+        assertThat(SearchCursor.decode(cursor, PromoSearch.Sort.DISCOUNT_PERCENT, false).id())
+                .isEqualTo("tenant:promo:3");
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(SearchCursor.decode(null, PromoSearch.Sort.ENDS_AT, false)).isNull();
+        assertThat(SearchCursor.decode("", PromoSearch.Sort.ENDS_AT, false)).isNull();
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String cursor = SearchCursor.encode(PromoSearch.Sort.DISCOUNT_PERCENT, false, 10, "promo-1");
+
+        assertThatThrownBy(() -> SearchCursor.decode(cursor, PromoSearch.Sort.STARTS_AT, false))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsCursorOfAnotherDirection() {
+        String cursor = SearchCursor.encode(PromoSearch.Sort.DISCOUNT_PERCENT, false, 10, "promo-1");
+
+        assertThatThrownBy(() -> SearchCursor.decode(cursor, PromoSearch.Sort.DISCOUNT_PERCENT, true))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        assertThatThrownBy(() -> SearchCursor.decode("not base64!", PromoSearch.Sort.STARTS_AT, false))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(PageCursor.encode("promo-1"), PromoSearch.Sort.STARTS_AT, false))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(encode("search:startsAt:asc:noseparator"),
+                PromoSearch.Sort.STARTS_AT, false))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(encode("search:startsAt:asc:soon:promo-1"),
+                PromoSearch.Sort.STARTS_AT, false))
+                .isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> SearchCursor.decode(encode("search:discountPercent:asc:99999999999:promo-1"),
+                PromoSearch.Sort.DISCOUNT_PERCENT, false))
+                .isInstanceOf(InvalidCursorException.class);
+    }
+
+    private static String encode(String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,43 @@
+package com.kas.promoservice.util.serializer;
+
+import com.kas.promoeventschema.PromoEventSchema;
+import com.kas.promoservice.dto.event.PromoEvent;
+import com.kas.promoservice.service.PromoStateService;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PromoEventSerializerTest {
+
+    @Test
+    void writesATombstoneForTheStateOfADeletedPromo() {
+        PromoEvent state = PromoStateService.stateOf(event(PromoEvent.EventType.PROMO_DELETED));
+
+        assertThat(state).isNull();
+        assertThat(new PromoEventSerializer().serialize("promo-state", new RecordHeaders(), state)).isNull();
+        assertThat(new PromoEventBinarySerializer().serialize("promo-state", new RecordHeaders(), state)).isNull();
+    }
+
+    @Test
+    void writesTheStateOfALivePromo() {
+        RecordHeaders headers = new RecordHeaders();
+        PromoEvent state = PromoStateService.stateOf(event(PromoEvent.EventType.PROMO_UPDATED));
+
+        byte[] value = new PromoEventSerializer().serialize("promo-state", headers, state);
+
+        assertThat(new String(value, StandardCharsets.UTF_8)).contains("\"promoId\":\"promo-1\"");
+        assertThat(headers.lastHeader(PromoEventSchema.FORMAT_HEADER).value())
+                .isEqualTo(PromoEventSchema.FORMAT_JSON.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static PromoEvent event(PromoEvent.EventType type) {
+        PromoEvent.Payload payload = new PromoEvent.Payload();
+        payload.setPromoId("promo-1");
+        payload.setVersion(3L);
+        return new PromoEvent("event-1", type, Instant.parse("2026-03-10T12:00:00Z"), payload);
+    }
+}